@@ -1,7 +1,7 @@
 package com.sokoban.controller;
 
+import com.sokoban.game.StartMeUp;
 import com.sokoban.model.StageModel;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 
 /**
@@ -26,6 +26,7 @@ public class MainPageController {
      * click the button in menu {@code File -> Exit}.
      */
     public void closeGame() {
+        model.close();
         System.exit(0);
     }
 
@@ -61,16 +62,39 @@ public class MainPageController {
         model.reloadGrid();
     }
 
+    /**
+     * Execute the redo operation when
+     * click the button in menu {@code Level -> Redo}.
+     */
+    public void redo() {
+        model.gotoNextLocation();
+        model.reloadGrid();
+    }
+
     /**
      * Reset current level to the beginning when
      * click the button in menu {@code Level -> Reset Level}.
      */
     public void resetLevel() {
-        int size = model.getGameEngine().getKeeperDirection().size();
-        while (size >= 0) {
-            model.gotoLastLocation();
-            size--;
-        }
+        model.getGameEngine().resetLevel();
+        model.reloadGrid();
+    }
+
+    /**
+     * Remember the current state of the level when
+     * click the button in menu {@code Level -> Set Checkpoint}.
+     */
+    public void setCheckpoint() {
+        model.getGameEngine().addCheckpoint();
+    }
+
+    /**
+     * Go back to the last checkpoint of the level when
+     * click the button in menu {@code Level -> Back to Checkpoint}.
+     */
+    public void gotoCheckpoint() {
+        StartMeUp gameEngine = model.getGameEngine();
+        gameEngine.gotoCheckpoint(gameEngine.getCheckpointCount() - 1);
         model.reloadGrid();
     }
 
@@ -90,10 +114,10 @@ public class MainPageController {
      * click the button in menu {@code Level -> Toggle Music}.
      */
     public void toggleMusic() {
-        if (model.getGameEngine().getMusic().isPlayingMusic()) {
-            model.getGameEngine().getMusic().stopMusic();
+        if (model.getMusic().isPlayingMusic()) {
+            model.getMusic().stopMusic();
         } else {
-            model.getGameEngine().getMusic().playMusic();
+            model.getMusic().playMusic();
         }
 
     }
@@ -107,16 +131,25 @@ public class MainPageController {
         model.reloadGrid();
     }
 
+    /**
+     * Refuse / allow pushing crates onto dead squares when
+     * click the button in menu {@code Level -> Block Dead Pushes}.
+     */
+    public void toggleDeadSquares() {
+        StartMeUp gameEngine = model.getGameEngine();
+        if (gameEngine.getDeadSquareMode() == StartMeUp.DeadSquareMode.REFUSE) {
+            gameEngine.setDeadSquareMode(StartMeUp.DeadSquareMode.OFF);
+        } else {
+            gameEngine.setDeadSquareMode(StartMeUp.DeadSquareMode.REFUSE);
+        }
+    }
+
     /**
      * Show the top 10 scores of the current level when
      * click the button in menu {@code Score -> Top 10 High Scores}.
      */
     public void showScores() {
-        try {
-            model.showScoreList(model.getGameEngine().getCurrentLevel().getIndex() + 1);
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-        }
+        model.showScoreList(model.getGameEngine().getCurrentLevel().getIndex() + 1);
     }
 }
 
@@ -11,7 +11,6 @@ import javafx.event.EventHandler;
 import javafx.scene.control.*;
 import javafx.util.Duration;
 
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
@@ -29,7 +28,10 @@ public class StartPageController {
     private Timeline animationMove;
     private Timeline animationTime;
     private Timeline animationLevel;
+    private Timeline animationStatus;
     private final int DURATION = 1000;
+    // The warnings are read more often than the counters, so they show right after the push
+    private final int STATUS_DURATION = 100;
 
     private int index = 1;
 
@@ -93,6 +95,11 @@ public class StartPageController {
             animationLevel = new Timeline(new KeyFrame(Duration.millis(DURATION), levelHandler));
             animationLevel.setCycleCount(Animation.INDEFINITE);
             animationLevel.play();
+
+            EventHandler<ActionEvent> statusHandler = e -> mainPageView.setStatusText(model.getStatusText());
+            animationStatus = new Timeline(new KeyFrame(Duration.millis(STATUS_DURATION), statusHandler));
+            animationStatus.setCycleCount(Animation.INDEFINITE);
+            animationStatus.play();
         }
     }
 
@@ -101,6 +108,7 @@ public class StartPageController {
      * click the button in menu {@code Exit}.
      */
     public void closeApp() {
+        model.close();
         System.exit(0);
     }
 
@@ -126,12 +134,8 @@ public class StartPageController {
      * the top 10 of the chosen level when click the button {@code High Scores}.
      */
     public void showHighScores() {
-        try {
-            showChoiceBox();
-            model.showScoreList(index);
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-        }
+        showChoiceBox();
+        model.showScoreList(index);
 
     }
 }
\ No newline at end of file
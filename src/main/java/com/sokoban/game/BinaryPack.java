@@ -0,0 +1,289 @@
+package com.sokoban.game;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The class BinaryPack reads a level pack saved in a compact binary form, usually mapped from its file,
+ * so that any level can be opened without reading the others.
+ * The pack holds, in this order and in big-endian:
+ * <ul>
+ *     <li>a header: the magic number, the version, the number of levels and the map set name</li>
+ *     <li>an index: the offset of each level from the start of the pack, and the end of the last one</li>
+ *     <li>the levels: the name, the width and height, then one byte of {@code PackedBoard} flags per cell</li>
+ * </ul>
+ * Names are written as a 2-byte length followed by UTF-8 bytes.
+ * A level is only built the first time it is asked for, then the same object is returned.
+ * @author Yuyang LIN
+ */
+public final class BinaryPack extends AbstractList<Level> implements RandomAccess {
+
+    /** The file extension of binary packs */
+    public static final String EXTENSION = ".skbp";
+
+    /** The first 4 bytes of every pack, "SKBP" */
+    public static final int MAGIC = 0x534B4250;
+
+    /** The version of the format written by this class */
+    public static final int VERSION = 1;
+
+    private static final int MAX_NAME_BYTES = 0xFFFF;
+
+    private final ByteBuffer buffer;
+    private final String mapSetName;
+    private final int indexStart;
+    private final Level[] levels;
+
+    /**
+     * Constructor to read the header and the index of a pack, the levels are read later.
+     * The buffer should not change while the pack is used.
+     * @param buffer    the whole pack, from its first byte
+     * @throws IOException  if the buffer is not a pack of a known version
+     */
+    public BinaryPack(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.duplicate();
+        if (!isPack(this.buffer)) {
+            throw new IOException("Not a level pack.");
+        }
+
+        int version = this.buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unknown level pack version: " + version + ".");
+        }
+
+        int count = this.buffer.getInt(8);
+        if (count < 0) {
+            throw new IOException("Broken level pack header.");
+        }
+        int nameLength = Short.toUnsignedInt(this.buffer.getShort(12));
+        mapSetName = readString(14, nameLength);
+        indexStart = 14 + nameLength;
+        levels = new Level[count];
+    }
+
+    /**
+     * Map a pack file to memory and open it.
+     * @param path  path of the pack file
+     * @return the pack
+     * @throws IOException  if the file cannot be read or is not a pack
+     */
+    public static BinaryPack open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return open(channel);
+        }
+    }
+
+    /**
+     * Map a pack to memory from an open channel, the mapping stays valid once the channel is closed.
+     * @param channel   the channel of the pack file
+     * @return the pack
+     * @throws IOException  if the file cannot be read or is not a pack
+     */
+    public static BinaryPack open(FileChannel channel) throws IOException {
+        return new BinaryPack(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+
+    /**
+     * Check if a buffer starts with the magic number of packs, the position of the buffer is not used.
+     * @param buffer    the buffer to check
+     * @return {@code true} if it is a pack, {@code false} otherwise
+     */
+    public static boolean isPack(ByteBuffer buffer) {
+        return buffer.limit() >= 4 && buffer.getInt(0) == MAGIC;
+    }
+
+    /**
+     * Get the name of the map set.
+     * @return {@code mapSetName}   the name of the map set
+     */
+    public String getMapSetName() {
+        return mapSetName;
+    }
+
+    /**
+     * Get the number of levels in the pack.
+     * @return the number of levels
+     */
+    @Override
+    public int size() {
+        return levels.length;
+    }
+
+    /**
+     * Get a level, building it the first time.
+     * @param index     index of the level
+     * @return the level
+     */
+    @Override
+    public Level get(int index) {
+        if (levels[index] == null) {
+            levels[index] = read(index);
+        }
+        return levels[index];
+    }
+
+    /**
+     * Build a new level each time from the pack, without keeping it.
+     * @param index     index of the level
+     * @return the level as it is in the pack
+     */
+    public Level read(int index) {
+        if (index < 0 || index >= levels.length) {
+            throw new IndexOutOfBoundsException("Level " + index + " is not in the pack.");
+        }
+
+        int position = buffer.getInt(indexStart + Integer.BYTES * index);
+        int nameLength = Short.toUnsignedInt(buffer.getShort(position));
+        String name = readString(position + 2, nameLength);
+        position += 2 + nameLength;
+
+        int width = Short.toUnsignedInt(buffer.getShort(position));
+        int height = Short.toUnsignedInt(buffer.getShort(position + 2));
+        position += 4;
+
+        byte[] cells = new byte[width * height];
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        view.get(cells);
+        return new Level(name, index, new PackedBoard(width, height, cells));
+    }
+
+    /**
+     * Write levels as a pack, taking the current state of each level.
+     * @param mapSetName    the name of the map set
+     * @param levels    the levels to write
+     * @param output    the stream to write to, it is not closed
+     * @throws IOException  if the stream cannot be written
+     */
+    public static void write(String mapSetName, List<Level> levels, OutputStream output) throws IOException {
+        byte[] setName = toBytes(mapSetName);
+        int indexStart = 14 + setName.length;
+        int dataStart = indexStart + Integer.BYTES * (levels.size() + 1);
+
+        // The levels go first into memory, so that the index can be written before them
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        DataOutputStream recordsData = new DataOutputStream(records);
+        int[] offsets = new int[levels.size() + 1];
+        for (int i = 0; i < levels.size(); i++) {
+            offsets[i] = dataStart + records.size();
+            writeLevel(levels.get(i), recordsData);
+        }
+        offsets[levels.size()] = dataStart + records.size();
+
+        DataOutputStream data = new DataOutputStream(output);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(levels.size());
+        data.writeShort(setName.length);
+        data.write(setName);
+        for (int offset : offsets) {
+            data.writeInt(offset);
+        }
+        records.writeTo(data);
+        data.flush();
+    }
+
+    /**
+     * Convert a text game file to a pack file.
+     * @param input     Input stream of the game file
+     * @param path      path of the pack file to write
+     * @throws IOException  if the game file cannot be read or the pack cannot be written
+     */
+    public static void convert(InputStream input, Path path) throws IOException {
+        LevelSource source = new LevelSource(input);
+        String mapSetName = source.getMapSetName() == null ? "" : source.getMapSetName();
+
+        try (OutputStream output = Files.newOutputStream(path)) {
+            write(mapSetName, new AbstractList<Level>() {
+                @Override
+                public Level get(int index) {
+                    // Built one at a time and dropped, so a large file is not kept in memory as levels
+                    return source.read(index);
+                }
+
+                @Override
+                public int size() {
+                    return source.size();
+                }
+            }, output);
+        }
+    }
+
+    /**
+     * Convert a game file from the command line.
+     * @param args  the game file and the pack file to write
+     * @throws IOException  if the game file cannot be read or the pack cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: BinaryPack <game file.skb> <pack file" + EXTENSION + ">");
+            return;
+        }
+
+        try (InputStream input = Files.newInputStream(Paths.get(args[0]))) {
+            convert(input, Paths.get(args[1]));
+        }
+    }
+
+    /**
+     * Write one level: its name, its size and its cells.
+     * @param level     the level to write
+     * @param data      the stream to write to
+     * @throws IOException  if the stream cannot be written
+     */
+    private static void writeLevel(Level level, DataOutputStream data) throws IOException {
+        PackedBoard board = level.getBoard();
+        if (board.getWidth() > 0xFFFF || board.getHeight() > 0xFFFF) {
+            throw new IllegalArgumentException("Level " + level.getName() + " is too large for a pack.");
+        }
+
+        byte[] name = toBytes(level.getName());
+        data.writeShort(name.length);
+        data.write(name);
+        data.writeShort(board.getWidth());
+        data.writeShort(board.getHeight());
+        for (int i = 0; i < board.size(); i++) {
+            data.writeByte(board.getCell(i));
+        }
+    }
+
+    /**
+     * Get the UTF-8 bytes of a name.
+     * @param name  the name
+     * @return the bytes of the name
+     */
+    private static byte[] toBytes(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("The name " + name.substring(0, 20) + "... is too long for a pack.");
+        }
+        return bytes;
+    }
+
+    /**
+     * Read a UTF-8 string from the pack.
+     * @param position  where the bytes start
+     * @param length    number of bytes
+     * @return the string
+     */
+    private String readString(int position, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,83 @@
+package com.sokoban.game;
+
+import java.util.BitSet;
+
+/**
+ * The class DeadSquares finds the floor cells from which a crate can never reach any diamond.
+ * Crates are pulled backwards from all the diamonds at once: a cell is live if some diamond
+ * can pull a crate to it, so the work is linear in the size of the board.
+ * @author Yuyang LIN
+ */
+final class DeadSquares {
+
+    private static final int[] DELTA_ROW = {-1, 0, 1, 0};
+    private static final int[] DELTA_COL = {0, 1, 0, -1};
+
+    /**
+     * Private constructor, the class only has static methods.
+     */
+    private DeadSquares() {
+    }
+
+    /**
+     * Find the dead squares of a board.
+     * @param board     the board of the level
+     * @return the set of the indexes of the dead cells
+     */
+    static BitSet find(PackedBoard board) {
+        int size = board.size();
+        boolean[] live = new boolean[size];
+        int[] queue = new int[size];
+        int head = 0;
+        int tail = 0;
+
+        for (int i = 0; i < size; i++) {
+            if (board.has(i, PackedBoard.DIAMOND)) {
+                live[i] = true;
+                queue[tail++] = i;
+            }
+        }
+
+        while (head < tail) {
+            int cell = queue[head++];
+            int row = board.rowOf(cell);
+            int col = board.colOf(cell);
+
+            for (int d = 0; d < DELTA_ROW.length; d++) {
+                // The crate is pulled one cell on while the keeper stands one further
+                int crateRow = row + DELTA_ROW[d];
+                int crateCol = col + DELTA_COL[d];
+                int keeperRow = crateRow + DELTA_ROW[d];
+                int keeperCol = crateCol + DELTA_COL[d];
+                if (isWall(board, crateRow, crateCol) || isWall(board, keeperRow, keeperCol)) {
+                    continue;
+                }
+
+                int pulled = board.indexOf(crateRow, crateCol);
+                if (!live[pulled]) {
+                    live[pulled] = true;
+                    queue[tail++] = pulled;
+                }
+            }
+        }
+
+        BitSet dead = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            if (!live[i] && !board.has(i, PackedBoard.WALL)) {
+                dead.set(i);
+            }
+        }
+        return dead;
+    }
+
+    /**
+     * Check if the cell is a wall or out of the board.
+     * @param board     the board of the level
+     * @param row   Row index
+     * @param col   Column index
+     * @return {@code true} if no crate can stand there, {@code false} otherwise
+     */
+    private static boolean isWall(PackedBoard board, int row, int col) {
+        return board.isOutOfBounds(row, col) || board.has(board.indexOf(row, col), PackedBoard.WALL);
+    }
+}
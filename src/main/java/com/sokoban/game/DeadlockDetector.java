@@ -0,0 +1,217 @@
+package com.sokoban.game;
+
+import java.util.BitSet;
+
+/**
+ * The class DeadlockDetector checks, after a push, if the pushed crate has left the level unsolvable.
+ * Only the cells around the pushed crate are looked at, never the whole board.
+ * Two kinds of deadlock are found:
+ * a freeze deadlock, where the crate is stuck on both axes against walls and other stuck crates
+ * while one of those crates is off its diamond, and a simple corral deadlock, where a diamond
+ * next to the crate is closed off from the keeper by walls and stuck crates only.
+ * @author Yuyang LIN
+ */
+public final class DeadlockDetector {
+
+    // The largest corral flooded, bigger ones are left to the rest of the game
+    private static final int MAX_CORRAL = 256;
+    private static final int[] DELTA_ROW = {-1, 0, 1, 0};
+    private static final int[] DELTA_COL = {0, 1, 0, -1};
+    private static final int UP = 0;
+    private static final int RIGHT = 1;
+    private static final int DOWN = 2;
+    private static final int LEFT = 3;
+
+    private final PackedBoard board;
+    private final BitSet deadSquares;
+    private final boolean[] frozenMarks;
+    private final int[] marked;
+    private int markedCount = 0;
+    private final int[] corralQueue;
+    private final int[] corralVisited;
+    private int corralStamp = 0;
+
+    /**
+     * Constructor to watch a board. The board is read at each check, so it may change in between.
+     * @param board     the board of the level, crates included
+     * @param deadSquares   the dead squares of the level
+     */
+    public DeadlockDetector(PackedBoard board, BitSet deadSquares) {
+        this.board = board;
+        this.deadSquares = deadSquares;
+        frozenMarks = new boolean[board.size()];
+        marked = new int[board.size()];
+        corralQueue = new int[MAX_CORRAL + 1];
+        corralVisited = new int[board.size()];
+    }
+
+    /**
+     * Check if the level is deadlocked after a crate was pushed.
+     * Levels with spare crates should not be checked, a spare crate may be stuck for good.
+     * @param crate     the cell the crate was pushed to
+     * @param keeper    the cell of the keeper after the push
+     * @return {@code true} if the level can no longer be solved, {@code false} if it is not known
+     */
+    public boolean isDeadlockedAfterPush(int crate, int keeper) {
+        return isFreezeDeadlock(crate) || isCorralDeadlock(crate, keeper);
+    }
+
+    /**
+     * Check if the crate is frozen together with a crate that is not on a diamond.
+     * @param crate     the cell of the crate
+     * @return {@code true} if it is a freeze deadlock, {@code false} otherwise
+     */
+    private boolean isFreezeDeadlock(int crate) {
+        boolean deadlock = false;
+        if (isFrozen(crate)) {
+            for (int i = 0; i < markedCount; i++) {
+                if (!board.has(marked[i], PackedBoard.DIAMOND)) {
+                    deadlock = true;
+                    break;
+                }
+            }
+        }
+        clearMarks(0);
+        return deadlock;
+    }
+
+    /**
+     * Check if a crate can never move again. The crates being checked are taken as walls,
+     * so crates blocking each other in a ring are all frozen.
+     * @param crate     the cell of the crate
+     * @return {@code true} if it is blocked on both axes, {@code false} otherwise
+     */
+    private boolean isFrozen(int crate) {
+        int markStart = markedCount;
+        frozenMarks[crate] = true;
+        marked[markedCount++] = crate;
+
+        boolean frozen = isAxisBlocked(crate, LEFT, RIGHT) && isAxisBlocked(crate, UP, DOWN);
+        if (!frozen) {
+            // Whatever was found frozen while assuming this crate was stuck no longer holds
+            clearMarks(markStart);
+        }
+        return frozen;
+    }
+
+    /**
+     * Check if a crate cannot move along one axis.
+     * @param crate     the cell of the crate
+     * @param first     one direction of the axis
+     * @param second    the other direction of the axis
+     * @return {@code true} if it is blocked, {@code false} otherwise
+     */
+    private boolean isAxisBlocked(int crate, int first, int second) {
+        int before = neighbour(crate, first);
+        int after = neighbour(crate, second);
+
+        if (isSolid(before) || isSolid(after)) {
+            return true;
+        }
+        if (deadSquares.get(before) && deadSquares.get(after)) {
+            return true;
+        }
+        return (board.has(before, PackedBoard.CRATE) && isFrozen(before))
+                || (board.has(after, PackedBoard.CRATE) && isFrozen(after));
+    }
+
+    /**
+     * Check if a corral next to the crate holds an empty diamond and is closed by frozen crates only.
+     * @param crate     the cell of the crate
+     * @param keeper    the cell of the keeper
+     * @return {@code true} if it is a corral deadlock, {@code false} otherwise
+     */
+    private boolean isCorralDeadlock(int crate, int keeper) {
+        for (int d = 0; d < DELTA_ROW.length; d++) {
+            int start = neighbour(crate, d);
+            if (start < 0 || (board.getCell(start) & (PackedBoard.WALL | PackedBoard.CRATE)) != 0) {
+                continue;
+            }
+            if (isClosedCorral(start, keeper)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Flood a corral and check if it can never be opened while it still needs a crate.
+     * @param start     a free cell of the corral
+     * @param keeper    the cell of the keeper
+     * @return {@code true} if the corral is a deadlock, {@code false} otherwise
+     */
+    private boolean isClosedCorral(int start, int keeper) {
+        corralStamp++;
+        int head = 0;
+        int tail = 0;
+        boolean needsCrate = false;
+        corralQueue[tail++] = start;
+        corralVisited[start] = corralStamp;
+
+        while (head < tail) {
+            int cell = corralQueue[head++];
+            if (cell == keeper) {
+                return false;
+            }
+            if (board.has(cell, PackedBoard.DIAMOND)) {
+                needsCrate = true;
+            }
+
+            for (int d = 0; d < DELTA_ROW.length; d++) {
+                int next = neighbour(cell, d);
+                if (next < 0 || board.has(next, PackedBoard.WALL) || corralVisited[next] == corralStamp) {
+                    continue;
+                }
+                corralVisited[next] = corralStamp;
+
+                if (board.has(next, PackedBoard.CRATE)) {
+                    // A crate on the border that may still move could open the corral
+                    boolean frozen = isFrozen(next);
+                    clearMarks(0);
+                    if (!frozen) {
+                        return false;
+                    }
+                } else {
+                    if (tail > MAX_CORRAL) {
+                        return false;
+                    }
+                    corralQueue[tail++] = next;
+                }
+            }
+        }
+
+        return needsCrate;
+    }
+
+    /**
+     * Get the cell next to another one.
+     * @param cell  index of the cell
+     * @param direction     direction to go
+     * @return index of the next cell, {@code -1} if it is out of the board
+     */
+    private int neighbour(int cell, int direction) {
+        int row = board.rowOf(cell) + DELTA_ROW[direction];
+        int col = board.colOf(cell) + DELTA_COL[direction];
+        return board.isOutOfBounds(row, col) ? -1 : board.indexOf(row, col);
+    }
+
+    /**
+     * Check if a cell stops a crate for good: a wall, the outside, or a crate taken as frozen.
+     * @param cell  index of the cell, {@code -1} for the outside
+     * @return {@code true} if the cell is solid, {@code false} otherwise
+     */
+    private boolean isSolid(int cell) {
+        return cell < 0 || board.has(cell, PackedBoard.WALL) || frozenMarks[cell];
+    }
+
+    /**
+     * Forget the frozen marks from a position on.
+     * @param from  the first mark to forget
+     */
+    private void clearMarks(int from) {
+        for (int i = from; i < markedCount; i++) {
+            frozenMarks[marked[i]] = false;
+        }
+        markedCount = from;
+    }
+}
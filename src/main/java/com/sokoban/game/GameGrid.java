@@ -10,9 +10,11 @@ import java.util.Iterator;
  */
 public class GameGrid implements Iterable {
 
+    private static final GameObject[] OBJECTS = GameObject.values();
     final int COLUMNS;
     final int ROWS;
-    private GameObject[][] gameObjects;
+    // GameObject ordinals plus one packed at x * ROWS + y, 0 stands for no object
+    private final byte[] gameObjects;
 
     /**
      * Constructor for GameGrid to initialize the GameObjects in the game.
@@ -22,7 +24,7 @@ public class GameGrid implements Iterable {
     public GameGrid(int columns, int rows) {
         COLUMNS = columns;
         ROWS = rows;
-        gameObjects = new GameObject[COLUMNS][ROWS];
+        gameObjects = new byte[COLUMNS * ROWS];
     }
 
     /**
@@ -59,24 +61,22 @@ public class GameGrid implements Iterable {
      * Get the GameObject at the requested location.
      * @param col   Column index
      * @param row   Row index
-     * @return {@code gameObjects[col][row]}
+     * @return the GameObject at {@code col * ROWS + row}, {@code null} if there is none
      * @throws ArrayIndexOutOfBoundsException   if the index of array out of bounds
      */
     public GameObject getGameObjectAt(int col, int row) throws ArrayIndexOutOfBoundsException {
         if (isPointOutOfBounds(col, row)) {
-            if (StartMeUp.isDebugActive()) {
-                System.out.printf("Trying to get null GameObject from COL: %d  ROW: %d", col, row);
-            }
             throw new ArrayIndexOutOfBoundsException("The point [" + col + ":" + row + "] is outside the map.");
         }
 
-        return gameObjects[col][row];
+        int packed = gameObjects[col * ROWS + row];
+        return packed == 0 ? null : OBJECTS[packed - 1];
     }
 
     /**
      * Overload of {@link #getGameObjectAt(int col, int row)}.
      * @param p     Point
-     * @return {@code gameObjects[(int) p.getX()][(int) p.getY()]}
+     * @return {@code getGameObjectAt((int) p.getX(), (int) p.getY())}
      */
     public GameObject getGameObjectAt(Point p) {
         if (p == null) {
@@ -107,8 +107,8 @@ public class GameGrid implements Iterable {
             return false;
         }
 
-        gameObjects[x][y] = gameObject;
-        return gameObjects[x][y] == gameObject;
+        gameObjects[x * ROWS + y] = (byte) (gameObject == null ? 0 : gameObject.ordinal() + 1);
+        return true;
     }
 
     /**
@@ -146,10 +146,11 @@ public class GameGrid implements Iterable {
      */
     @Override
     public String toString() {
-        StringBuilder sb = new StringBuilder(gameObjects.length);
+        StringBuilder sb = new StringBuilder(gameObjects.length + COLUMNS);
 
-        for (GameObject[] gameObject : gameObjects) {
-            for (GameObject aGameObject : gameObject) {
+        for (int x = 0; x < COLUMNS; x++) {
+            for (int y = 0; y < ROWS; y++) {
+                GameObject aGameObject = getGameObjectAt(x, y);
                 if (aGameObject == null) {
                     aGameObject = GameObject.DEBUG_OBJECT;
                 }
@@ -0,0 +1,49 @@
+package com.sokoban.game;
+
+/**
+ * The interface GameListener is told what happens in a game, so a user interface can be
+ * layered on top of the engine while the engine itself runs without any toolkit.
+ * All the methods do nothing by default, a listener only overrides what it needs.
+ * @author Yuyang LIN
+ */
+public interface GameListener {
+
+    /**
+     * Called after the keeper moved.
+     * @param direction     direction of the move, from {@code D_UP} to {@code D_LEFT}
+     * @param target    the object that was in front of the keeper, {@code FLOOR} or {@code CRATE}
+     */
+    default void onMove(short direction, GameObject target) {
+    }
+
+    /**
+     * Called after a move was undone.
+     */
+    default void onUndo() {
+    }
+
+    /**
+     * Called after the level was reset or put back to a checkpoint.
+     */
+    default void onRestore() {
+    }
+
+    /**
+     * Called after a push left the level unsolvable, see {@link StartMeUp#isDeadlocked()}.
+     */
+    default void onDeadlock() {
+    }
+
+    /**
+     * Called when a level is completed, before the next level is loaded.
+     * @param level     the level completed
+     */
+    default void onLevelComplete(Level level) {
+    }
+
+    /**
+     * Called when the last level is completed.
+     */
+    default void onGameComplete() {
+    }
+}
@@ -1,14 +1,10 @@
 package com.sokoban.game;
 
-import com.sokoban.model.StageModel;
 import javafx.animation.FadeTransition;
 import javafx.animation.Timeline;
-import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
-import javafx.scene.paint.ImagePattern;
 import javafx.scene.shape.Rectangle;
 import javafx.util.Duration;
-import java.io.File;
 import java.net.URISyntaxException;
 
 /**
@@ -17,11 +13,10 @@ import java.net.URISyntaxException;
  */
 public class GraphicObject extends Rectangle {
 
-    static int direction = 2;
-    private final int D_UP = 0;
-    private final int D_RIGHT = 1;
-    private final int D_DOWN = 2;
-    private final int D_LEFT = 3;
+    private GameObject object;
+    private short direction;
+    private final String wallColour;
+    private final boolean debug;
     private final int BLOCK_VAL = 30;
     private final double STROKE_WID = 0.25;
     private final int DURATION = 1000;
@@ -31,58 +26,39 @@ public class GraphicObject extends Rectangle {
     /**
      * Constructor to initialize the current object.
      * @param obj   Game object
+     * @param direction     the direction the keeper faces
+     * @param wallColour    the colour of the walls, {@code null} for the default one
+     * @param debug     {@code true} to show the object in debug mode
      * @throws URISyntaxException   URI not found
      */
-    public GraphicObject(GameObject obj) throws URISyntaxException {
-        String element = "";
-
-        switch (obj) {
-            case WALL:
-                element = setWall();
-                break;
-
-            case CRATE:
-                element = "/images/box1.png";
-                break;
-
-            case DIAMOND:
-                element = "/images/target1.png";
-
-                if (StartMeUp.isDebugActive()) {
-                    FadeTransition ft = new FadeTransition(Duration.millis(DURATION), this);
-                    ft.setFromValue(FROM);
-                    ft.setToValue(TO);
-                    ft.setCycleCount(Timeline.INDEFINITE);
-                    ft.setAutoReverse(true);
-                    ft.play();
-                }
-
-                break;
-
-            case KEEPER:
-                element = setDirection();
-                break;
-
-            case FLOOR:
-                element = "/images/ground3.png";
-                break;
-
-            case CRATE_ON_DIAMOND:
-                element = "/images/box5.png";
-                break;
+    public GraphicObject(GameObject obj, short direction, String wallColour, boolean debug)
+            throws URISyntaxException {
+        this.object = obj;
+        this.direction = direction;
+        this.wallColour = wallColour;
+        this.debug = debug;
+        String element = SpriteCache.pathOf(obj, wallColour, direction);
+
+        if (element == null) {
+            String message = "Error in Level constructor. Object not recognized.";
+            StartMeUp.logger.severe(message);
+            throw new AssertionError(message);
+        }
 
-            default:
-                String message = "Error in Level constructor. Object not recognized.";
-                StartMeUp.logger.severe(message);
-                throw new AssertionError(message);
+        if (obj == GameObject.DIAMOND && debug) {
+            FadeTransition ft = new FadeTransition(Duration.millis(DURATION), this);
+            ft.setFromValue(FROM);
+            ft.setToValue(TO);
+            ft.setCycleCount(Timeline.INDEFINITE);
+            ft.setAutoReverse(true);
+            ft.play();
         }
 
         this.setHeight(BLOCK_VAL);
         this.setWidth(BLOCK_VAL);
-        Image image = new Image(getClass().getResource(element).toURI().toString());
-        this.setFill(new ImagePattern(image));
+        this.setFill(SpriteCache.getPattern(element));
 
-        if (StartMeUp.isDebugActive()) {
+        if (debug) {
             this.setStroke(Color.RED);
 
             this.setStrokeWidth(STROKE_WID);
@@ -90,11 +66,26 @@ public class GraphicObject extends Rectangle {
     }
 
     /**
-     * Get direction of the keeper object in StartMeUp.
-     * @param directionEngine   the keeper object in StartMeUp
+     * Show another object on this node in place, so the node stays in the grid.
+     * In debug mode a diamond fades in and out, so a node cannot change to or from a diamond.
+     * @param obj   Game object
+     * @param direction     the direction the keeper faces
+     * @return {@code true} if the node shows the object, {@code false} if a new node is needed
+     * @throws URISyntaxException   URI not found
      */
-    public static void giveDirection(short directionEngine) {
-        direction = directionEngine;
+    public boolean show(GameObject obj, short direction) throws URISyntaxException {
+        if (debug && (obj == GameObject.DIAMOND) != (object == GameObject.DIAMOND)) {
+            return false;
+        }
+        String element = SpriteCache.pathOf(obj, wallColour, direction);
+        if (element == null) {
+            return false;
+        }
+
+        this.object = obj;
+        this.direction = direction;
+        this.setFill(SpriteCache.getPattern(element));
+        return true;
     }
 
     /**
@@ -102,26 +93,7 @@ public class GraphicObject extends Rectangle {
      * @return String of file path of the keeper in different directions
      */
     public String setDirection() {
-        String set;
-        switch (direction) {
-            case D_UP:
-                set = "/images/mUP.png";
-                break;
-            case D_RIGHT:
-                set = "/images/mRight.png";
-                break;
-            case D_DOWN:
-                set = "/images/mDown.png";
-                break;
-            case D_LEFT:
-                set = "/images/mLeft.png";
-                break;
-            default:
-                set = "/images/mDown.png";
-                break;
-        }
-        return set;
-
+        return SpriteCache.keeperPath(direction);
     }
 
     /**
@@ -129,22 +101,7 @@ public class GraphicObject extends Rectangle {
      * @return String of file path of wall colours
      */
     public String setWall() {
-        if (StageModel.wallColour == null) {
-            return "/images/wall2.png";
-        }
-        switch (StageModel.wallColour) {
-            case "Yellow":
-                return "/images/wall1.png";
-
-            case "Brown":
-                return "/images/wall3.png";
-
-            case "Grey":
-                return "/images/wall4.png";
-
-            default:
-                return "/images/wall2.png";
-        }
+        return SpriteCache.wallPath(wallColour);
     }
 
 }
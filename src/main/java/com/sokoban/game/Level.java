@@ -1,10 +1,12 @@
 package com.sokoban.game;
 
 import java.awt.*;
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
 
-import static com.sokoban.game.GameGrid.translatePoint;
+import static com.sokoban.game.PackedBoard.CRATE;
+import static com.sokoban.game.PackedBoard.DIAMOND;
 
 /**
  * The class Level stores information about the elements in each level.
@@ -12,12 +14,36 @@ import static com.sokoban.game.GameGrid.translatePoint;
  */
 public final class Level implements Iterable<GameObject> {
 
+    /** The most cells remembered as changed between two draws, past that the whole board is drawn */
+    public static final int MAX_CHANGED_CELLS = 64;
+
+    private static final byte CRATED_DIAMOND = CRATE | DIAMOND;
+    private static final int NO_REGION = -1;
+    private static final int[] DELTA_ROW = {-1, 0, 1, 0};
+    private static final int[] DELTA_COL = {0, 1, 0, -1};
     private final String name;
-    private final GameGrid objectsGrid;
-    private final GameGrid diamondsGrid;
+    private final PackedBoard board;
     private final int index;
+    private final BitSet deadSquares;
     private int numberOfDiamonds = 0;
+    private int numberOfCrates = 0;
+    private int cratedDiamondsCount = 0;
     private Point keeperPosition = new Point(0, 0);
+    private long layoutHash;
+    private long crateHash = 0;
+    private int keeperRegion = NO_REGION;
+    private int[] regionQueue;
+    private boolean[] regionVisited;
+    private DeadlockDetector deadlockDetector;
+    // Walls and diamonds never move, so the start of the level is only where the crates and the keeper were
+    private final int[] initialCrates;
+    private final int initialKeeper;
+    private final int initialCratedDiamonds;
+    private final long initialCrateHash;
+    private final long puzzleHash;
+    private final int[] changedCells = new int[MAX_CHANGED_CELLS];
+    // Goes past MAX_CHANGED_CELLS once too many cells changed to remember them
+    private int changedCount = 0;
 
     /**
      * Get the name of this level.
@@ -47,27 +73,41 @@ public final class Level implements Iterable<GameObject> {
      * Get the target object from the source.
      * @param source    the beginning point
      * @param delta     the unit direction
-     * @return {@code objectsGrid.getTargetFromSource(source, delta)}   GameObject of the target
+     * @return {@code board.getObjectAt(source.x + delta.x, source.y + delta.y)}   GameObject of the target
      */
     public GameObject getTargetObject(Point source, Point delta) {
-        return objectsGrid.getTargetFromSource(source, delta);
+        return board.getObjectAt(source.x + delta.x, source.y + delta.y);
     }
 
     /**
      * Get the target object with the point.
      * @param p     the object of point
-     * @return {@code objectsGrid.getGameObjectAt(p)}   GameObject of the target
+     * @return {@code board.getObjectAt(p.x, p.y)}   GameObject of the target
      */
     public GameObject getObjectAt(Point p) {
-        return objectsGrid.getGameObjectAt(p);
+        if (p == null) {
+            throw new IllegalArgumentException("Point cannot be null.");
+        }
+
+        return board.getObjectAt(p.x, p.y);
+    }
+
+    /**
+     * Overload of {@link #getObjectAt(Point)} with the row and column.
+     * @param row   Row index
+     * @param col   Column index
+     * @return {@code board.getObjectAt(row, col)}   GameObject of the target
+     */
+    public GameObject getObjectAt(int row, int col) {
+        return board.getObjectAt(row, col);
     }
 
     /**
-     * Get the GameGrid of all the object.
-     * @return {@code objectsGrid} GameGrid of objects
+     * Get the packed board with all the objects and diamonds.
+     * @return {@code board}    the board of the level
      */
-    public GameGrid getObjectsGrid() {
-        return objectsGrid;
+    public PackedBoard getBoard() {
+        return board;
     }
 
     /**
@@ -77,57 +117,312 @@ public final class Level implements Iterable<GameObject> {
      * @param raw_level     object of Level
      */
     public Level(String levelName, int levelIndex, List<String> raw_level) {
-        if (StartMeUp.isDebugActive()) {
-            System.out.printf("[ADDING LEVEL] LEVEL [%d]: %s\n", levelIndex, levelName);
-        }
+        this(levelName, levelIndex, readBoard(raw_level));
+    }
 
+    /**
+     * Constructor to initialize a level from a board that is already packed.
+     * The board is kept and changed by the moves, so it should not be shared.
+     * @param levelName     name of level
+     * @param levelIndex    index of level
+     * @param board     the board with all the objects and diamonds
+     */
+    Level(String levelName, int levelIndex, PackedBoard board) {
         name = levelName;
         index = levelIndex;
+        this.board = board;
+
+        int keeper = -1;
+        layoutHash = Zobrist.sizeKey(board.getWidth(), board.getHeight());
+        for (int i = 0; i < board.size(); i++) {
+            byte cell = board.getCell(i);
+            if ((cell & PackedBoard.WALL) != 0) {
+                layoutHash ^= Zobrist.wallKey(i);
+            }
+            // A crate that starts on its diamond ('O') counts as a diamond and as a crated diamond
+            if ((cell & DIAMOND) != 0) {
+                numberOfDiamonds++;
+                layoutHash ^= Zobrist.diamondKey(i);
+            }
+            if ((cell & CRATE) != 0) {
+                numberOfCrates++;
+                crateHash ^= Zobrist.crateKey(i);
+            }
+            if ((cell & CRATED_DIAMOND) == CRATED_DIAMOND) {
+                cratedDiamondsCount++;
+            }
+            if ((cell & PackedBoard.KEEPER) != 0) {
+                keeperPosition = new Point(board.rowOf(i), board.colOf(i));
+                keeper = i;
+            }
+        }
+
+        initialCrates = new int[numberOfCrates];
+        for (int i = 0, crate = 0; crate < numberOfCrates; i++) {
+            if ((board.getCell(i) & CRATE) != 0) {
+                initialCrates[crate++] = i;
+            }
+        }
+        initialKeeper = keeper;
+        initialCratedDiamonds = cratedDiamondsCount;
+        initialCrateHash = crateHash;
 
+        deadSquares = DeadSquares.find(board);
+        puzzleHash = layoutHash ^ getHash();
+    }
+
+    /**
+     * Read the rows of a level into a board, the width is the one of the first row.
+     * @param raw_level     rows of the level
+     * @return the board with all the objects and diamonds
+     */
+    private static PackedBoard readBoard(List<String> raw_level) {
         int rows = raw_level.size();
         int columns = raw_level.get(0).trim().length();
+        PackedBoard board = new PackedBoard(columns, rows);
 
-        objectsGrid = new GameGrid(rows, columns);
-        diamondsGrid = new GameGrid(rows, columns);
-
-        for (int row = 0; row < raw_level.size(); row++) {
+        for (int row = 0; row < rows; row++) {
+            String line = raw_level.get(row);
+            int length = Math.min(line.length(), columns);
 
             // Loop over the string one char at a time because it should be the fastest way:
             // http://stackoverflow.com/questions/8894258/fastest-way-to-iterate-over-all-the-chars-in-a-string
-            for (int col = 0; col < raw_level.get(row).length(); col++) {
-                // The game object is null when the we're adding a floor or a diamond
-                GameObject curTile = GameObject.fromChar(raw_level.get(row).charAt(col));
-
-                if (curTile == GameObject.DIAMOND) {
-                    numberOfDiamonds++;
-                    diamondsGrid.putGameObjectAt(curTile, row, col);
-                    curTile = GameObject.FLOOR;
-                } else if (curTile == GameObject.KEEPER) {
-                    keeperPosition = new Point(row, col);
-                }
-
-                objectsGrid.putGameObjectAt(curTile, row, col);
-                curTile = null;
+            for (int col = 0; col < length; col++) {
+                board.putObjectAt(GameObject.fromChar(line.charAt(col)), board.indexOf(row, col));
             }
         }
+        return board;
     }
 
     /**
      * To check if all the crates are on the proper position.
+     * The count of crated diamonds is kept up to date by each move, so no scan is needed.
      * @return {@code true} if the level is completed, {@code false} otherwise
      */
     boolean isComplete() {
-        int cratedDiamondsCount = 0;
-        for (int row = 0; row < objectsGrid.ROWS; row++) {
-            for (int col = 0; col < objectsGrid.COLUMNS; col++) {
-                if (objectsGrid.getGameObjectAt(col, row) == GameObject.CRATE
-                        && diamondsGrid.getGameObjectAt(col, row) == GameObject.DIAMOND) {
-                    cratedDiamondsCount++;
-                }
-            }
+        return cratedDiamondsCount >= numberOfDiamonds;
+    }
+
+    /**
+     * Get the number of crates standing on diamonds.
+     * @return {@code cratedDiamondsCount}     number of crated diamonds
+     */
+    public int getCratedDiamondsCount() {
+        return cratedDiamondsCount;
+    }
+
+    /**
+     * Check if a crate on the cell can never reach any diamond.
+     * @param row   Row index
+     * @param col   Column index
+     * @return {@code true} if the cell is a dead square, {@code false} otherwise
+     */
+    public boolean isDeadSquare(int row, int col) {
+        return !board.isOutOfBounds(row, col) && deadSquares.get(board.indexOf(row, col));
+    }
+
+    /**
+     * Overload of {@link #isDeadSquare(int, int)} with the cell index.
+     * @param index     index of the cell
+     * @return {@code true} if the cell is a dead square, {@code false} otherwise
+     */
+    public boolean isDeadSquare(int index) {
+        return deadSquares.get(index);
+    }
+
+    /**
+     * Check if there are more crates than diamonds, so some crates may rest anywhere,
+     * dead squares included.
+     * @return {@code true} if there are spare crates, {@code false} otherwise
+     */
+    public boolean hasSpareCrates() {
+        return numberOfCrates > numberOfDiamonds;
+    }
+
+    /**
+     * Check if the crate just pushed to the cell has left the level unsolvable.
+     * Only freeze and corral deadlocks around the crate are found, and levels with
+     * spare crates are never reported.
+     * @param row   Row index of the pushed crate
+     * @param col   Column index of the pushed crate
+     * @return {@code true} if the level can no longer be solved, {@code false} if it is not known
+     */
+    public boolean isDeadlockedAfterPush(int row, int col) {
+        if (hasSpareCrates() || board.isOutOfBounds(row, col) || !board.has(board.indexOf(row, col), CRATE)) {
+            return false;
+        }
+        if (deadlockDetector == null) {
+            deadlockDetector = new DeadlockDetector(board, deadSquares);
         }
 
-        return cratedDiamondsCount >= numberOfDiamonds;
+        return deadlockDetector.isDeadlockedAfterPush(board.indexOf(row, col),
+                board.indexOf(keeperPosition.x, keeperPosition.y));
+    }
+
+    /**
+     * Take a copy of the current state, to come back to it later with {@link #restore(Snapshot)}.
+     * @return the snapshot of the state
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    /**
+     * Come back to a state of this level taken before, by copying the board at once.
+     * @param snapshot  the snapshot of the state
+     */
+    public void restore(Snapshot snapshot) {
+        if (snapshot.level != this) {
+            throw new IllegalArgumentException("The snapshot was taken from level " + snapshot.level.getName() + ".");
+        }
+
+        board.copyFrom(snapshot.board);
+        keeperPosition.setLocation(snapshot.keeperRow, snapshot.keeperCol);
+        cratedDiamondsCount = snapshot.cratedDiamondsCount;
+        crateHash = snapshot.crateHash;
+        stateReplaced();
+    }
+
+    /**
+     * Put the level back as it was before the first move,
+     * by putting the crates and the keeper back where they started.
+     */
+    public void reset() {
+        for (int i = 0; i < board.size(); i++) {
+            board.clear(i, (byte) (CRATE | PackedBoard.KEEPER));
+        }
+        for (int crate : initialCrates) {
+            board.set(crate, CRATE);
+        }
+        if (initialKeeper >= 0) {
+            board.set(initialKeeper, PackedBoard.KEEPER);
+            keeperPosition.setLocation(board.rowOf(initialKeeper), board.colOf(initialKeeper));
+        }
+        cratedDiamondsCount = initialCratedDiamonds;
+        crateHash = initialCrateHash;
+        stateReplaced();
+    }
+
+    /**
+     * Forget what was computed from the state once the whole state is replaced.
+     */
+    private void stateReplaced() {
+        keeperRegion = NO_REGION;
+        // Any cell may have changed
+        changedCount = MAX_CHANGED_CELLS + 1;
+    }
+
+    /**
+     * Get the Zobrist hash of the current state: the crates and the region the keeper can walk in.
+     * Two states the keeper can walk between without pushing have the same hash,
+     * which is also the hash the solver gives the state.
+     * @return the 64-bit hash of the state
+     */
+    public long getHash() {
+        return crateHash ^ Zobrist.keeperKey(getKeeperRegion());
+    }
+
+    /**
+     * Get the Zobrist hash of the crates only.
+     * @return {@code crateHash}    the 64-bit hash of the crates
+     */
+    public long getCrateHash() {
+        return crateHash;
+    }
+
+    /**
+     * Get the Zobrist hash of the parts that never move: the size, the walls and the diamonds.
+     * Two levels with the same layout hash and the same state hash are the same puzzle.
+     * @return {@code layoutHash}   the 64-bit hash of the layout
+     */
+    public long getLayoutHash() {
+        return layoutHash;
+    }
+
+    /**
+     * Get the Zobrist hash of the puzzle: the layout and the state before the first move.
+     * It does not change with the moves, and tells which level a solution was played on.
+     * @return {@code puzzleHash}   the 64-bit hash of the puzzle
+     */
+    public long getPuzzleHash() {
+        return puzzleHash;
+    }
+
+    /**
+     * Get the smallest cell index the keeper can walk to without pushing a crate.
+     * The region only changes when a crate moves, so it is flooded again only then.
+     * @return index of the cell standing for the region of the keeper
+     */
+    public int getKeeperRegion() {
+        if (keeperRegion == NO_REGION) {
+            keeperRegion = floodKeeperRegion();
+        }
+        return keeperRegion;
+    }
+
+    /**
+     * Flood the cells the keeper can walk to without pushing a crate.
+     * @return the smallest reachable index
+     */
+    private int floodKeeperRegion() {
+        if (regionQueue == null) {
+            regionQueue = new int[board.size()];
+            regionVisited = new boolean[board.size()];
+        }
+
+        int start = board.indexOf(keeperPosition.x, keeperPosition.y);
+        int head = 0;
+        int tail = 0;
+        int smallest = start;
+        regionQueue[tail++] = start;
+        regionVisited[start] = true;
+
+        while (head < tail) {
+            int cell = regionQueue[head++];
+            smallest = Math.min(smallest, cell);
+            int row = board.rowOf(cell);
+            int col = board.colOf(cell);
+            tail = visitRegionCell(row - 1, col, tail);
+            tail = visitRegionCell(row, col + 1, tail);
+            tail = visitRegionCell(row + 1, col, tail);
+            tail = visitRegionCell(row, col - 1, tail);
+        }
+
+        for (int i = 0; i < tail; i++) {
+            regionVisited[regionQueue[i]] = false;
+        }
+        return smallest;
+    }
+
+    /**
+     * Queue a cell of the keeper region if it is free and not visited yet.
+     * @param row   Row index
+     * @param col   Column index
+     * @param tail  the end of the queue
+     * @return the new end of the queue
+     */
+    private int visitRegionCell(int row, int col, int tail) {
+        if (board.isOutOfBounds(row, col)) {
+            return tail;
+        }
+
+        int cell = board.indexOf(row, col);
+        if (regionVisited[cell] || (board.getCell(cell) & (PackedBoard.WALL | CRATE)) != 0) {
+            return tail;
+        }
+
+        regionVisited[cell] = true;
+        regionQueue[tail] = cell;
+        return tail + 1;
+    }
+
+    /**
+     * Check if there is a crate on the diamond of the cell.
+     * @param index     index of the cell
+     * @return {@code 1} if there is a crated diamond, {@code 0} otherwise
+     */
+    private int cratedDiamondAt(int index) {
+        return board.has(index, CRATED_DIAMOND) ? 1 : 0;
     }
 
     /**
@@ -137,7 +432,7 @@ public final class Level implements Iterable<GameObject> {
      * @param delta     the coordinates of the delta
      */
     public void moveGameObjectBy(GameObject object, Point source, Point delta) {
-        moveGameObjectTo(object, source, translatePoint(source, delta));
+        moveGameObjectTo(object, source.x, source.y, source.x + delta.x, source.y + delta.y);
     }
 
     /**
@@ -147,17 +442,123 @@ public final class Level implements Iterable<GameObject> {
      * @param destination     the coordinates of the destination
      */
     public void moveGameObjectTo(GameObject object, Point source, Point destination) {
-        objectsGrid.putGameObjectAt(getObjectAt(destination), source);
-        objectsGrid.putGameObjectAt(object, destination);
+        moveGameObjectTo(object, source.x, source.y, destination.x, destination.y);
+    }
+
+    /**
+     * Overload of {@link #moveGameObjectTo(GameObject, Point, Point)} with int coordinates.
+     * @param object    the object to move
+     * @param sourceRow     the row of the source
+     * @param sourceCol     the column of the source
+     * @param destinationRow    the row of the destination
+     * @param destinationCol    the column of the destination
+     */
+    public void moveGameObjectTo(GameObject object, int sourceRow, int sourceCol,
+                                 int destinationRow, int destinationCol) {
+        int source = board.indexOf(sourceRow, sourceCol);
+        int destination = board.indexOf(destinationRow, destinationCol);
+        GameObject replaced = board.getObjectAt(destinationRow, destinationCol);
+        int cratedBefore = cratedDiamondAt(source) + cratedDiamondAt(destination);
+
+        boolean crateOnSource = board.has(source, CRATE);
+        boolean crateOnDestination = board.has(destination, CRATE);
+
+        board.putObjectAt(replaced, source);
+        board.putObjectAt(object, destination);
+        cratedDiamondsCount += cratedDiamondAt(source) + cratedDiamondAt(destination) - cratedBefore;
+
+        if (crateOnSource != board.has(source, CRATE)) {
+            crateHash ^= Zobrist.crateKey(source);
+            keeperRegion = NO_REGION;
+        }
+        if (crateOnDestination != board.has(destination, CRATE)) {
+            crateHash ^= Zobrist.crateKey(destination);
+            keeperRegion = NO_REGION;
+        }
+
+        markChanged(source);
+        markChanged(destination);
+    }
+
+    /**
+     * Play a move recorded before, without checking it can be played.
+     * @param move  the move, see {@link MoveLog#encode(int, boolean)}
+     */
+    public void applyMove(int move) {
+        int direction = MoveLog.directionOf(move);
+        int row = keeperPosition.x;
+        int col = keeperPosition.y;
+        int dRow = DELTA_ROW[direction];
+        int dCol = DELTA_COL[direction];
+
+        if (MoveLog.isPush(move)) {
+            moveGameObjectTo(GameObject.CRATE, row + dRow, col + dCol, row + 2 * dRow, col + 2 * dCol);
+        }
+        moveGameObjectTo(GameObject.KEEPER, row, col, row + dRow, col + dCol);
+        keeperPosition.translate(dRow, dCol);
+    }
+
+    /**
+     * Take back the last move played, pulling back the crate it pushed if any.
+     * @param move  the move, see {@link MoveLog#encode(int, boolean)}
+     */
+    public void revertMove(int move) {
+        int direction = MoveLog.directionOf(move);
+        int row = keeperPosition.x;
+        int col = keeperPosition.y;
+        int dRow = DELTA_ROW[direction];
+        int dCol = DELTA_COL[direction];
+
+        moveGameObjectTo(GameObject.KEEPER, row, col, row - dRow, col - dCol);
+        if (MoveLog.isPush(move)) {
+            moveGameObjectTo(GameObject.CRATE, row + dRow, col + dCol, row, col);
+        }
+        keeperPosition.translate(-dRow, -dCol);
+    }
+
+    /**
+     * Take the cells changed by the moves since the last call, and forget them.
+     * @param cells     the array to fill, at least {@code MAX_CHANGED_CELLS} long
+     * @return the number of cells filled, {@code -1} if too many cells changed and all should be drawn
+     */
+    public int takeChangedCells(int[] cells) {
+        int count = changedCount > MAX_CHANGED_CELLS ? -1 : changedCount;
+        if (count > 0) {
+            System.arraycopy(changedCells, 0, cells, 0, count);
+        }
+        changedCount = 0;
+        return count;
+    }
+
+    /**
+     * Remember that a cell changed, for the next {@link #takeChangedCells(int[])}.
+     * @param index     index of the cell
+     */
+    private void markChanged(int index) {
+        if (changedCount < MAX_CHANGED_CELLS) {
+            changedCells[changedCount] = index;
+        }
+        if (changedCount <= MAX_CHANGED_CELLS) {
+            changedCount++;
+        }
     }
 
     /**
      * Override of {@link String#toString()}.
-     * @return {@code objectsGrid.toString()} all GameObjects in the level
+     * @return all GameObjects in the level, diamonds are not included
      */
     @Override
     public String toString() {
-        return objectsGrid.toString();
+        StringBuilder sb = new StringBuilder(board.size() + board.getHeight());
+
+        for (int i = 0; i < board.size(); i++) {
+            sb.append(board.getObjectAt(i).getCharSymbol());
+            if (board.colOf(i) == board.getWidth() - 1) {
+                sb.append('\n');
+            }
+        }
+
+        return sb.toString();
     }
 
     /**
@@ -191,7 +592,7 @@ public final class Level implements Iterable<GameObject> {
          */
         @Override
         public boolean hasNext() {
-            return !(row == objectsGrid.ROWS - 1 && column == objectsGrid.COLUMNS);
+            return !(row == board.getWidth() - 1 && column == board.getHeight());
         }
 
         /**
@@ -200,28 +601,44 @@ public final class Level implements Iterable<GameObject> {
          */
         @Override
         public GameObject next() {
-            if (column >= objectsGrid.COLUMNS) {
+            if (column >= board.getHeight()) {
                 column = 0;
                 row++;
             }
 
-            GameObject object = objectsGrid.getGameObjectAt(column, row);
-            GameObject diamond = diamondsGrid.getGameObjectAt(column, row);
-            GameObject retObj = object;
+            // The iterator walks the level with column as the row of the board,
+            // keeping the order of getCurrentPosition() used by the views
+            GameObject retObj = board.getDisplayObjectAt(board.indexOf(column, row));
 
             column++;
 
-            if (diamond == GameObject.DIAMOND) {
-                if (object == GameObject.CRATE) {
-                    retObj = GameObject.CRATE_ON_DIAMOND;
-                } else if (object == GameObject.FLOOR) {
-                    retObj = diamond;
-                } else {
-                    retObj = object;
-                }
-            }
-
             return retObj;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * The class Snapshot is an immutable copy of the state of a level: the board and what is computed from it.
+     */
+    public static final class Snapshot {
+
+        private final Level level;
+        private final PackedBoard board;
+        private final int keeperRow;
+        private final int keeperCol;
+        private final int cratedDiamondsCount;
+        private final long crateHash;
+
+        /**
+         * Constructor to copy the current state of a level.
+         * @param level     the level
+         */
+        private Snapshot(Level level) {
+            this.level = level;
+            board = new PackedBoard(level.board);
+            keeperRow = level.keeperPosition.x;
+            keeperCol = level.keeperPosition.y;
+            cratedDiamondsCount = level.cratedDiamondsCount;
+            crateHash = level.crateHash;
+        }
+    }
+}
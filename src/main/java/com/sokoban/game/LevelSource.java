@@ -0,0 +1,233 @@
+package com.sokoban.game;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The class LevelSource gives the levels of a game file as a list, without parsing them up front.
+ * The file is read once to find where each level starts, and a level is only built
+ * the first time it is asked for, so a pack with many levels shows its first level right away.
+ * The same level object is returned each time after that.
+ * @author Yuyang LIN
+ */
+public final class LevelSource extends AbstractList<Level> implements RandomAccess {
+
+    private static final String MAP_SET_NAME = "MapSetName";
+    private static final String LEVEL_NAME = "LevelName";
+
+    private final String text;
+    private String mapSetName;
+    // The level i is read from starts[i] up to starts[i + 1], its name is names[i]
+    private int[] starts = new int[16];
+    private final List<String> names = new ArrayList<>();
+    private final Level[] levels;
+
+    /**
+     * Constructor to read a game file and find its levels.
+     * The stream is read to the end but not closed.
+     * @param input     Input stream of the game file
+     * @throws IOException  if the stream cannot be read
+     */
+    public LevelSource(InputStream input) throws IOException {
+        this(input.readAllBytes());
+    }
+
+    /**
+     * Constructor to find the levels of a game file already read.
+     * @param data  content of the game file
+     */
+    LevelSource(byte[] data) {
+        text = new String(data);
+        int count = index();
+        levels = new Level[count];
+    }
+
+    /**
+     * Get the name of the map set, the last one given in the file.
+     * @return {@code mapSetName}   the name of the map set, {@code null} if there is none
+     */
+    public String getMapSetName() {
+        return mapSetName;
+    }
+
+    /**
+     * Get the number of levels in the file.
+     * @return the number of levels
+     */
+    @Override
+    public int size() {
+        return levels.length;
+    }
+
+    /**
+     * Get a level, building it the first time.
+     * @param index     index of the level
+     * @return the level
+     */
+    @Override
+    public Level get(int index) {
+        if (levels[index] == null) {
+            levels[index] = read(index);
+        }
+        return levels[index];
+    }
+
+    /**
+     * Build a new level each time, without keeping it.
+     * @param index     index of the level
+     * @return the level as it is in the file
+     */
+    public Level read(int index) {
+        if (index < 0 || index >= levels.length) {
+            throw new IndexOutOfBoundsException("Level " + index + " is not in the file.");
+        }
+        return new Level(names.get(index), index, readRows(starts[index], starts[index + 1]));
+    }
+
+    /**
+     * Go over the file once, keeping the start and the name of each level and the name of the map set.
+     * A level made of no rows at the end of the file is left out.
+     * @return the number of levels
+     */
+    private int index() {
+        int count = 0;
+        boolean parsedFirstLevel = false;
+        boolean hasRows = false;
+        int nextMapSetName = text.indexOf(MAP_SET_NAME);
+        int nextLevelName = text.indexOf(LEVEL_NAME);
+        int lineStart = 0;
+
+        while (lineStart < text.length()) {
+            int lineEnd = lineEnd(lineStart);
+
+            while (nextMapSetName >= 0 && nextMapSetName + MAP_SET_NAME.length() <= lineStart) {
+                nextMapSetName = text.indexOf(MAP_SET_NAME, nextMapSetName + 1);
+            }
+            while (nextLevelName >= 0 && nextLevelName + LEVEL_NAME.length() <= lineStart) {
+                nextLevelName = text.indexOf(LEVEL_NAME, nextLevelName + 1);
+            }
+
+            if (isInLine(nextMapSetName, MAP_SET_NAME, lineEnd)) {
+                mapSetName = text.substring(lineStart, lineEnd).replace("MapSetName: ", "");
+            } else if (isInLine(nextLevelName, LEVEL_NAME, lineEnd)) {
+                // The rows before the first name belong to the first level
+                if (parsedFirstLevel) {
+                    count = addStart(count, lineStart);
+                    hasRows = false;
+                } else {
+                    parsedFirstLevel = true;
+                }
+                names.add(text.substring(lineStart, lineEnd).replace("LevelName: ", ""));
+            } else if (isRow(lineStart, lineEnd)) {
+                hasRows = true;
+            }
+
+            lineStart = nextLine(lineEnd);
+        }
+
+        if (!parsedFirstLevel) {
+            names.add("");
+        }
+        if (hasRows) {
+            count = addStart(count, text.length());
+        }
+        starts[count] = text.length();
+        return count;
+    }
+
+    /**
+     * Keep the start of the next level, the first level always starts at the beginning of the file.
+     * @param count     number of levels kept so far
+     * @param end       where the level being read ends
+     * @return the new number of levels
+     */
+    private int addStart(int count, int end) {
+        if (count + 2 > starts.length) {
+            starts = Arrays.copyOf(starts, starts.length * 2);
+        }
+        starts[count + 1] = end;
+        return count + 1;
+    }
+
+    /**
+     * Read the rows of one level, the same way the whole file used to be read.
+     * @param from  where the level starts
+     * @param to    where the level ends
+     * @return the rows of the level, in upper case
+     */
+    private List<String> readRows(int from, int to) {
+        List<String> rows = new ArrayList<>();
+        int lineStart = from;
+
+        while (lineStart < to) {
+            int lineEnd = lineEnd(lineStart);
+            String line = text.substring(lineStart, lineEnd);
+            if (!line.contains(MAP_SET_NAME) && !line.contains(LEVEL_NAME) && isRow(lineStart, lineEnd)) {
+                rows.add(line.trim().toUpperCase());
+            }
+            lineStart = nextLine(lineEnd);
+        }
+        return rows;
+    }
+
+    /**
+     * Check if a line is a row of a map, that is if it contains at least 2 walls.
+     * @param lineStart     where the line starts
+     * @param lineEnd       where the line ends
+     * @return {@code true} if the line is a row, {@code false} otherwise
+     */
+    private boolean isRow(int lineStart, int lineEnd) {
+        int walls = 0;
+        for (int i = lineStart; i < lineEnd && walls < 2; i++) {
+            char c = text.charAt(i);
+            if (c == 'W' || c == 'w') {
+                walls++;
+            }
+        }
+        return walls >= 2;
+    }
+
+    /**
+     * Check if a word found in the text lies within the current line.
+     * @param position  where the word was found, {@code -1} if it was not
+     * @param word      the word
+     * @param lineEnd   where the line ends
+     * @return {@code true} if the word is in the line, {@code false} otherwise
+     */
+    private static boolean isInLine(int position, String word, int lineEnd) {
+        return position >= 0 && position + word.length() <= lineEnd;
+    }
+
+    /**
+     * Find where a line ends, before its line break.
+     * @param lineStart     where the line starts
+     * @return the position of the line break, or the end of the text
+     */
+    private int lineEnd(int lineStart) {
+        int i = lineStart;
+        while (i < text.length() && text.charAt(i) != '\n' && text.charAt(i) != '\r') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Find where the next line starts, a line break being "\n", "\r" or "\r\n".
+     * @param lineEnd   where the current line ends
+     * @return the start of the next line
+     */
+    private int nextLine(int lineEnd) {
+        if (lineEnd < text.length() && text.charAt(lineEnd) == '\r') {
+            lineEnd++;
+        }
+        if (lineEnd < text.length() && text.charAt(lineEnd) == '\n') {
+            lineEnd++;
+        }
+        return lineEnd;
+    }
+}
@@ -2,11 +2,13 @@ package com.sokoban.game;
 
 import com.sokoban.controller.MainPageController;
 import com.sokoban.controller.StartPageController;
+import com.sokoban.model.BoardRenderer;
 import com.sokoban.model.StageModel;
 import com.sokoban.view.MainPageView;
 import com.sokoban.view.StartPageView;
 import javafx.application.Application;
 import javafx.stage.Stage;
+import java.nio.file.Paths;
 
 /**
  * The class Main is the place to load and start the mvc patterns.
@@ -16,6 +18,10 @@ public class Main extends Application {
 
     /**
      * The main method.
+     * The board is drawn with one node per cell, {@code --renderer=canvas} draws it on one canvas instead.
+     * {@code --viewport=40x25} only draws 40 columns and 25 rows around the keeper.
+     * {@code --data-dir=<directory>} keeps the scores and replays in the directory
+     * instead of {@code .sokoban} in the home directory.
      *
      * @param args - the arguments
      */
@@ -32,7 +38,26 @@ public class Main extends Application {
     @Override
     public void start(Stage primaryStage) throws Exception {
 
-        StageModel stageModel = new StageModel();
+        String dataDirectory = getParameters().getNamed().get("data-dir");
+        StageModel stageModel = dataDirectory == null
+                ? new StageModel() : new StageModel(Paths.get(dataDirectory));
+        String renderer = getParameters().getNamed().get("renderer");
+        if (renderer != null) {
+            try {
+                stageModel.setRendererKind(BoardRenderer.Kind.valueOf(renderer.toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                System.out.println("Unknown renderer " + renderer + ", the grid renderer is used.");
+            }
+        }
+        String viewport = getParameters().getNamed().get("viewport");
+        if (viewport != null) {
+            try {
+                String[] size = viewport.toLowerCase().split("x");
+                stageModel.setViewport(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                System.out.println("Unknown viewport " + viewport + ", the whole board is shown.");
+            }
+        }
         MainPageController mainPageController = new MainPageController(stageModel);
         MainPageView mainPageView =
                 new MainPageView(mainPageController, stageModel, primaryStage);
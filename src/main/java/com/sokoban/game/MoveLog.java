@@ -0,0 +1,162 @@
+package com.sokoban.game;
+
+import java.util.Arrays;
+
+/**
+ * The class MoveLog records the moves of the keeper in a level, one byte per move:
+ * the direction in the two low bits and a flag for a push.
+ * Undone moves stay in the log after the current position so they can be redone,
+ * until a different move is played.
+ * @author Yuyang LIN
+ */
+public final class MoveLog {
+
+    /** Returned by {@link #undo()} and {@link #redo()} when there is no move */
+    public static final int NO_MOVE = -1;
+
+    private static final int DIRECTION_MASK = 3;
+    private static final int PUSH = 4;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final char[] LURD = {'u', 'r', 'd', 'l'};
+
+    private byte[] moves = new byte[INITIAL_CAPACITY];
+    // Moves before size are played, moves from size to end can be redone
+    private int size = 0;
+    private int end = 0;
+
+    /**
+     * Encode a move.
+     * @param direction     direction of the move, from {@code D_UP} to {@code D_LEFT}
+     * @param push  {@code true} if the move pushed a crate
+     * @return the move
+     */
+    public static int encode(int direction, boolean push) {
+        return direction | (push ? PUSH : 0);
+    }
+
+    /**
+     * Get the direction of a move.
+     * @param move  the move
+     * @return direction of the move, from {@code D_UP} to {@code D_LEFT}
+     */
+    public static int directionOf(int move) {
+        return move & DIRECTION_MASK;
+    }
+
+    /**
+     * Check if a move pushed a crate.
+     * @param move  the move
+     * @return {@code true} if the move pushed a crate, {@code false} otherwise
+     */
+    public static boolean isPush(int move) {
+        return (move & PUSH) != 0;
+    }
+
+    /**
+     * Record a move played. It keeps the moves to redo if it is the next of them, and drops them otherwise.
+     * @param direction     direction of the move, from {@code D_UP} to {@code D_LEFT}
+     * @param push  {@code true} if the move pushed a crate
+     * @return {@code true} if moves to redo were dropped, {@code false} otherwise
+     */
+    public boolean add(int direction, boolean push) {
+        byte move = (byte) encode(direction, push);
+        if (size < end && moves[size] == move) {
+            size++;
+            return false;
+        }
+
+        boolean dropped = size < end;
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, moves.length * 2);
+        }
+        moves[size++] = move;
+        end = size;
+        return dropped;
+    }
+
+    /**
+     * Step back over the last move played, it can be redone afterwards.
+     * @return the move, {@code NO_MOVE} if there is none
+     */
+    public int undo() {
+        return size == 0 ? NO_MOVE : moves[--size];
+    }
+
+    /**
+     * Get the next move to redo, without stepping over it.
+     * @return the move, {@code NO_MOVE} if there is none
+     */
+    public int peekRedo() {
+        return size == end ? NO_MOVE : moves[size];
+    }
+
+    /**
+     * Step over the next move to redo.
+     * @return the move, {@code NO_MOVE} if there is none
+     */
+    public int redo() {
+        return size == end ? NO_MOVE : moves[size++];
+    }
+
+    /**
+     * Move the current position anywhere from the first move to the last move that can be redone,
+     * the moves after it can be redone.
+     * @param position  number of moves played after the seek
+     */
+    public void seek(int position) {
+        if (position < 0 || position > end) {
+            throw new IndexOutOfBoundsException("Cannot seek to move " + position + " in a log of " + end + " moves.");
+        }
+        size = position;
+    }
+
+    /**
+     * Get a move played.
+     * @param index     index of the move, from the first one
+     * @return the move
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("No move " + index + " in a log of " + size + " moves.");
+        }
+        return moves[index];
+    }
+
+    /**
+     * Get the number of moves played.
+     * @return {@code size}
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the number of moves that can be redone.
+     * @return {@code end - size}
+     */
+    public int redoSize() {
+        return end - size;
+    }
+
+    /**
+     * Forget all the moves.
+     */
+    public void clear() {
+        size = 0;
+        end = 0;
+    }
+
+    /**
+     * Write the moves played in LURD notation, upper case letters are pushes.
+     * @return the moves
+     */
+    @Override
+    public String toString() {
+        StringBuilder lurd = new StringBuilder(size);
+        for (int i = 0; i < size; i++) {
+            char step = LURD[directionOf(moves[i])];
+            lurd.append(isPush(moves[i]) ? Character.toUpperCase(step) : step);
+        }
+        return lurd.toString();
+    }
+}
@@ -0,0 +1,302 @@
+package com.sokoban.game;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The class MoveTree records every line of moves played in a level as a tree.
+ * The root is the level before the first move and every other node is the state after one more move,
+ * so undoing and then playing a different move starts a new branch while the old one is kept.
+ * Each node remembers the child it was left through, which is the move redone by default.
+ * A snapshot of the level is kept every {@code SNAPSHOT_INTERVAL} moves down each branch,
+ * so jumping to any node restores the closest snapshot above it and replays the few moves left.
+ * The nodes are stored in primitive arrays, indexed by node.
+ * @author Yuyang LIN
+ */
+public final class MoveTree {
+
+    /** The node of the level before the first move */
+    public static final int ROOT = 0;
+
+    /** Returned when there is no such node */
+    public static final int NO_NODE = -1;
+
+    /** The number of moves between two snapshots down a branch */
+    public static final int SNAPSHOT_INTERVAL = 64;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Level level;
+    private final Map<Integer, Level.Snapshot> snapshots = new HashMap<>();
+    private int[] parent = new int[INITIAL_CAPACITY];
+    private byte[] moves = new byte[INITIAL_CAPACITY];
+    private int[] depth = new int[INITIAL_CAPACITY];
+    private int[] firstChild = new int[INITIAL_CAPACITY];
+    private int[] nextSibling = new int[INITIAL_CAPACITY];
+    private int[] redoChild = new int[INITIAL_CAPACITY];
+    private int nodeCount = 1;
+    private int current = ROOT;
+    private final int[] path = new int[SNAPSHOT_INTERVAL];
+
+    /**
+     * Constructor to record the moves played in a level from its current state.
+     * @param level     the level
+     */
+    public MoveTree(Level level) {
+        this.level = level;
+        parent[ROOT] = NO_NODE;
+        firstChild[ROOT] = NO_NODE;
+        nextSibling[ROOT] = NO_NODE;
+        redoChild[ROOT] = NO_NODE;
+        snapshots.put(ROOT, level.snapshot());
+    }
+
+    /**
+     * Get the node of the current state.
+     * @return {@code current}
+     */
+    public int getCurrent() {
+        return current;
+    }
+
+    /**
+     * Get the number of nodes in the tree, the root included.
+     * @return {@code nodeCount}
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Get the number of moves played from the root to the current state.
+     * @return the depth of the current node
+     */
+    public int size() {
+        return depth[current];
+    }
+
+    /**
+     * Get the number of moves from the root to a node.
+     * @param node  the node
+     * @return the depth of the node
+     */
+    public int depthOf(int node) {
+        checkNode(node);
+        return depth[node];
+    }
+
+    /**
+     * Get the node a node was played from.
+     * @param node  the node
+     * @return the parent, {@code NO_NODE} for the root
+     */
+    public int parentOf(int node) {
+        checkNode(node);
+        return parent[node];
+    }
+
+    /**
+     * Get the move that leads to a node.
+     * @param node  the node, not the root
+     * @return the move, see {@link MoveLog#encode(int, boolean)}
+     */
+    public int moveOf(int node) {
+        checkNode(node);
+        if (node == ROOT) {
+            throw new IllegalArgumentException("No move leads to the root.");
+        }
+        return moves[node];
+    }
+
+    /**
+     * Get the first branch played from a node.
+     * @param node  the node
+     * @return the first child, {@code NO_NODE} if there is none
+     */
+    public int firstChildOf(int node) {
+        checkNode(node);
+        return firstChild[node];
+    }
+
+    /**
+     * Get the next branch played from the same node.
+     * @param node  the node
+     * @return the next sibling, {@code NO_NODE} if there is none
+     */
+    public int nextSiblingOf(int node) {
+        checkNode(node);
+        return nextSibling[node];
+    }
+
+    /**
+     * Record a move played from the current state.
+     * The move follows the existing branch if it was already played from here, or starts a new one.
+     * @param move  the move, see {@link MoveLog#encode(int, boolean)}
+     * @return the new current node
+     */
+    public int add(int move) {
+        int child = firstChild[current];
+        while (child != NO_NODE && moves[child] != move) {
+            child = nextSibling[child];
+        }
+
+        if (child == NO_NODE) {
+            child = newNode(current, move);
+            if (depth[child] % SNAPSHOT_INTERVAL == 0) {
+                snapshots.put(child, level.snapshot());
+            }
+        }
+        redoChild[current] = child;
+        current = child;
+        return current;
+    }
+
+    /**
+     * Step back to the parent of the current state, it can be redone afterwards.
+     * The level itself is not changed, see {@link Level#revertMove(int)}.
+     * @return the move stepped back, {@code MoveLog.NO_MOVE} at the root
+     */
+    public int undo() {
+        if (current == ROOT) {
+            return MoveLog.NO_MOVE;
+        }
+        int move = moves[current];
+        current = parent[current];
+        return move;
+    }
+
+    /**
+     * Get the move redone by default from the current state: the last branch it was left through.
+     * @return the move, {@code MoveLog.NO_MOVE} if there is none
+     */
+    public int peekRedo() {
+        int child = redoChild[current];
+        return child == NO_NODE ? MoveLog.NO_MOVE : moves[child];
+    }
+
+    /**
+     * Get the number of moves that can be redone by default from the current state.
+     * @return the length of the default line below the current node
+     */
+    public int redoSize() {
+        int count = 0;
+        for (int node = redoChild[current]; node != NO_NODE; node = redoChild[node]) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Keep a snapshot of the current state, so a later jump to it restores it at once.
+     */
+    public void keepSnapshot() {
+        if (!snapshots.containsKey(current)) {
+            snapshots.put(current, level.snapshot());
+        }
+    }
+
+    /**
+     * Put the level in the state of any node: the closest snapshot above it is restored
+     * and the moves from there are played again.
+     * The branches on the way become the ones redone by default.
+     * @param node  the node
+     */
+    public void jumpTo(int node) {
+        checkNode(node);
+        int count = 0;
+        int start = node;
+        while (!snapshots.containsKey(start)) {
+            path[count++] = start;
+            start = parent[start];
+        }
+
+        level.restore(snapshots.get(start));
+        for (int i = count - 1; i >= 0; i--) {
+            redoChild[parent[path[i]]] = path[i];
+            level.applyMove(moves[path[i]]);
+        }
+        current = node;
+    }
+
+    /**
+     * Get the deepest node that is both above or at a node and above or at another.
+     * @param first     a node
+     * @param second    another node
+     * @return the common ancestor
+     */
+    public int commonAncestor(int first, int second) {
+        checkNode(first);
+        checkNode(second);
+        while (depth[first] > depth[second]) {
+            first = parent[first];
+        }
+        while (depth[second] > depth[first]) {
+            second = parent[second];
+        }
+        while (first != second) {
+            first = parent[first];
+            second = parent[second];
+        }
+        return first;
+    }
+
+    /**
+     * Write the line from the root to the current state, followed by the moves redone by default.
+     * @return the line of moves, positioned at the current state
+     */
+    public MoveLog toMoveLog() {
+        MoveLog line = new MoveLog();
+        int count = depth[current];
+        int[] played = new int[count];
+        for (int node = current; node != ROOT; node = parent[node]) {
+            played[--count] = moves[node];
+        }
+        for (int move : played) {
+            line.add(MoveLog.directionOf(move), MoveLog.isPush(move));
+        }
+        for (int node = redoChild[current]; node != NO_NODE; node = redoChild[node]) {
+            line.add(MoveLog.directionOf(moves[node]), MoveLog.isPush(moves[node]));
+        }
+        line.seek(depth[current]);
+        return line;
+    }
+
+    /**
+     * Add a node below another.
+     * @param from  the parent
+     * @param move  the move from the parent
+     * @return the new node
+     */
+    private int newNode(int from, int move) {
+        if (nodeCount == parent.length) {
+            int capacity = parent.length * 2;
+            parent = Arrays.copyOf(parent, capacity);
+            moves = Arrays.copyOf(moves, capacity);
+            depth = Arrays.copyOf(depth, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            redoChild = Arrays.copyOf(redoChild, capacity);
+        }
+
+        int node = nodeCount++;
+        parent[node] = from;
+        moves[node] = (byte) move;
+        depth[node] = depth[from] + 1;
+        firstChild[node] = NO_NODE;
+        redoChild[node] = NO_NODE;
+        nextSibling[node] = firstChild[from];
+        firstChild[from] = node;
+        return node;
+    }
+
+    /**
+     * Check a node is in the tree.
+     * @param node  the node
+     */
+    private void checkNode(int node) {
+        if (node < 0 || node >= nodeCount) {
+            throw new IndexOutOfBoundsException("No node " + node + " in a tree of " + nodeCount + " nodes.");
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.sokoban.game;
+
+import java.util.Arrays;
+
+/**
+ * The class PackedBoard stores every cell of a level in one flat byte array.
+ * Each cell keeps its wall, diamond, crate and keeper flags as bits,
+ * and the cell of {@code (row, col)} is found at {@code row * width + col}.
+ * @author Yuyang LIN
+ */
+public final class PackedBoard {
+
+    /** The bit of a wall cell */
+    public static final byte WALL = 1;
+
+    /** The bit of a cell with a diamond on it */
+    public static final byte DIAMOND = 2;
+
+    /** The bit of a cell with a crate on it */
+    public static final byte CRATE = 4;
+
+    /** The bit of the cell where the keeper stands */
+    public static final byte KEEPER = 8;
+
+    private static final byte OBJECT_MASK = WALL | CRATE | KEEPER;
+
+    private final int width;
+    private final int height;
+    private final byte[] cells;
+
+    /**
+     * Constructor to initialize an empty board, all the cells start as walls.
+     * @param width     number of columns
+     * @param height    number of rows
+     */
+    public PackedBoard(int width, int height) {
+        this.width = width;
+        this.height = height;
+        cells = new byte[width * height];
+        Arrays.fill(cells, WALL);
+    }
+
+    /**
+     * Constructor to wrap cells that are already packed, the array is kept as it is.
+     * @param width     number of columns
+     * @param height    number of rows
+     * @param cells     the flags of every cell, {@code width * height} of them
+     */
+    PackedBoard(int width, int height, byte[] cells) {
+        if (cells.length != width * height) {
+            throw new IllegalArgumentException("Expected " + width * height + " cells but got " + cells.length + ".");
+        }
+        this.width = width;
+        this.height = height;
+        this.cells = cells;
+    }
+
+    /**
+     * Constructor to copy another board.
+     * @param other     the board to copy
+     */
+    public PackedBoard(PackedBoard other) {
+        width = other.width;
+        height = other.height;
+        cells = other.cells.clone();
+    }
+
+    /**
+     * Overwrite every cell with the cells of another board of the same size.
+     * @param other     the board to copy
+     */
+    public void copyFrom(PackedBoard other) {
+        if (other.width != width || other.height != height) {
+            throw new IllegalArgumentException("Cannot copy a " + other.width + "x" + other.height
+                    + " board onto a " + width + "x" + height + " board.");
+        }
+        System.arraycopy(other.cells, 0, cells, 0, cells.length);
+    }
+
+    /**
+     * Get the number of columns.
+     * @return {@code width}    number of columns
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get the number of rows.
+     * @return {@code height}   number of rows
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Get the number of cells on the board.
+     * @return {@code cells.length}     number of cells
+     */
+    public int size() {
+        return cells.length;
+    }
+
+    /**
+     * Get the index of a cell.
+     * @param row   Row index
+     * @param col   Column index
+     * @return {@code row * width + col}
+     */
+    public int indexOf(int row, int col) {
+        return row * width + col;
+    }
+
+    /**
+     * Get the row of a cell index.
+     * @param index     index of the cell
+     * @return {@code index / width}
+     */
+    public int rowOf(int index) {
+        return index / width;
+    }
+
+    /**
+     * Get the column of a cell index.
+     * @param index     index of the cell
+     * @return {@code index % width}
+     */
+    public int colOf(int index) {
+        return index % width;
+    }
+
+    /**
+     * Check if the cell is out of the board.
+     * @param row   Row index
+     * @param col   Column index
+     * @return {@code true} if it is out of bounds, {@code false} otherwise
+     */
+    public boolean isOutOfBounds(int row, int col) {
+        return row < 0 || col < 0 || row >= height || col >= width;
+    }
+
+    /**
+     * Get all the flags of a cell.
+     * @param index     index of the cell
+     * @return {@code cells[index]}
+     */
+    public byte getCell(int index) {
+        return cells[index];
+    }
+
+    /**
+     * Check if the cell has all the given flags.
+     * @param index     index of the cell
+     * @param flag      the flags to check
+     * @return {@code true} if all the flags are set, {@code false} otherwise
+     */
+    public boolean has(int index, byte flag) {
+        return (cells[index] & flag) == flag;
+    }
+
+    /**
+     * Set flags on a cell.
+     * @param index     index of the cell
+     * @param flag      the flags to set
+     */
+    public void set(int index, byte flag) {
+        cells[index] |= flag;
+    }
+
+    /**
+     * Clear flags on a cell.
+     * @param index     index of the cell
+     * @param flag      the flags to clear
+     */
+    public void clear(int index, byte flag) {
+        cells[index] &= ~flag;
+    }
+
+    /**
+     * Get the GameObject standing on the cell, diamonds are not included.
+     * @param row   Row index
+     * @param col   Column index
+     * @return {@code getObjectAt(indexOf(row, col))}
+     * @throws ArrayIndexOutOfBoundsException   if the cell is out of the board
+     */
+    public GameObject getObjectAt(int row, int col) throws ArrayIndexOutOfBoundsException {
+        if (isOutOfBounds(row, col)) {
+            throw new ArrayIndexOutOfBoundsException("The point [" + row + ":" + col + "] is outside the map.");
+        }
+
+        return getObjectAt(indexOf(row, col));
+    }
+
+    /**
+     * Overload of {@link #getObjectAt(int, int)} with the cell index.
+     * @param index     index of the cell
+     * @return {@code WALL}, {@code CRATE}, {@code KEEPER} or {@code FLOOR}
+     */
+    public GameObject getObjectAt(int index) {
+        byte cell = cells[index];
+        if ((cell & WALL) != 0) {
+            return GameObject.WALL;
+        } else if ((cell & CRATE) != 0) {
+            return GameObject.CRATE;
+        } else if ((cell & KEEPER) != 0) {
+            return GameObject.KEEPER;
+        }
+
+        return GameObject.FLOOR;
+    }
+
+    /**
+     * Get the GameObject to display on the cell, diamonds are included.
+     * @param index     index of the cell
+     * @return {@code CRATE_ON_DIAMOND} or {@code DIAMOND} if there is a diamond under
+     * a crate or the floor, {@code getObjectAt(index)} otherwise
+     */
+    public GameObject getDisplayObjectAt(int index) {
+        GameObject object = getObjectAt(index);
+
+        if ((cells[index] & DIAMOND) != 0) {
+            if (object == GameObject.CRATE) {
+                return GameObject.CRATE_ON_DIAMOND;
+            } else if (object == GameObject.FLOOR) {
+                return GameObject.DIAMOND;
+            }
+        }
+
+        return object;
+    }
+
+    /**
+     * Put a GameObject on the cell, the diamond on the cell is kept.
+     * @param object    the object to put
+     * @param index     index of the cell
+     */
+    public void putObjectAt(GameObject object, int index) {
+        byte cell = (byte) (cells[index] & ~OBJECT_MASK);
+
+        switch (object) {
+            case WALL:
+                cell |= WALL;
+                break;
+
+            case CRATE:
+                cell |= CRATE;
+                break;
+
+            case KEEPER:
+                cell |= KEEPER;
+                break;
+
+            case DIAMOND:
+                cell |= DIAMOND;
+                break;
+
+            case CRATE_ON_DIAMOND:
+                cell |= CRATE | DIAMOND;
+                break;
+
+            default:
+                break;
+        }
+
+        cells[index] = cell;
+    }
+}
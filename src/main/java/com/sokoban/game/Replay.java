@@ -0,0 +1,215 @@
+package com.sokoban.game;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The class Replay records how a player solved a level, so the result can be checked by playing it again.
+ * A replay is written on one line of tab separated fields:
+ * <pre>R1  puzzle hash  claimed moves  time in ms  player  moves</pre>
+ * The moves are in LURD notation, upper case letters are pushes, and a run of the same move
+ * is written once after its length, so {@code 3rU} stands for {@code rrrU}.
+ * @author Yuyang LIN
+ */
+public final class Replay {
+
+    /** The first field of every replay line */
+    public static final String VERSION = "R1";
+
+    /** The most moves a line of moves is read into, far more than any level needs */
+    public static final int MAX_MOVES = 1 << 20;
+
+    private static final String SEPARATOR = "\t";
+    private static final int FIELDS = 6;
+    private static final String LURD = "urdl";
+
+    private final long puzzleHash;
+    private final int claimedMoves;
+    private final long timeMillis;
+    private final String player;
+    private final MoveLog moves;
+
+    /**
+     * Constructor to record a solution.
+     * @param puzzleHash    the hash of the level solved, see {@link Level#getPuzzleHash()}
+     * @param claimedMoves  the moves counted for the score, undone moves included
+     * @param timeMillis    the time taken, in milliseconds
+     * @param player    the name of the player
+     * @param moves     the line of moves from the start of the level to the solution
+     */
+    public Replay(long puzzleHash, int claimedMoves, long timeMillis, String player, MoveLog moves) {
+        this.puzzleHash = puzzleHash;
+        this.claimedMoves = claimedMoves;
+        this.timeMillis = timeMillis;
+        // The name is a field of a tab separated line
+        this.player = player.replaceAll("[\\t\\r\\n]", " ");
+        this.moves = moves;
+    }
+
+    /**
+     * Get the hash of the level solved.
+     * @return {@code puzzleHash}
+     */
+    public long getPuzzleHash() {
+        return puzzleHash;
+    }
+
+    /**
+     * Get the moves counted for the score.
+     * @return {@code claimedMoves}
+     */
+    public int getClaimedMoves() {
+        return claimedMoves;
+    }
+
+    /**
+     * Get the time taken.
+     * @return {@code timeMillis}   the time in milliseconds
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * Get the name of the player.
+     * @return {@code player}
+     */
+    public String getPlayer() {
+        return player;
+    }
+
+    /**
+     * Get the line of moves of the solution.
+     * @return {@code moves}
+     */
+    public MoveLog getMoves() {
+        return moves;
+    }
+
+    /**
+     * Read a replay from its line.
+     * @param line  the line of the replay
+     * @return the replay
+     * @throws IllegalArgumentException     if the line is not a replay
+     */
+    public static Replay parse(String line) {
+        String[] fields = line.split(SEPARATOR, -1);
+        if (fields.length != FIELDS || !fields[0].equals(VERSION)) {
+            throw new IllegalArgumentException("Not a replay: " + line);
+        }
+
+        return new Replay(Long.parseUnsignedLong(fields[1], 16), Integer.parseInt(fields[2]),
+                Long.parseLong(fields[3]), fields[4], parseMoves(fields[5]));
+    }
+
+    /**
+     * Read moves in LURD notation, with run lengths, up to {@link #MAX_MOVES} moves.
+     * @param lurd  the moves
+     * @return the line of moves
+     * @throws IllegalArgumentException     if a letter is not a move or a run length is wrong,
+     * or if there are too many moves
+     */
+    public static MoveLog parseMoves(String lurd) {
+        return parseMoves(lurd, MAX_MOVES);
+    }
+
+    /**
+     * Read moves in LURD notation, with run lengths.
+     * The runs are checked before they are added, so a line from anywhere cannot make a huge line of moves.
+     * @param lurd  the moves
+     * @param maxMoves  the most moves to read
+     * @return the line of moves
+     * @throws IllegalArgumentException     if a letter is not a move or a run length is wrong,
+     * or if there are more than {@code maxMoves} moves
+     */
+    public static MoveLog parseMoves(String lurd, int maxMoves) {
+        MoveLog line = new MoveLog();
+        int run = 0;
+        for (int i = 0; i < lurd.length(); i++) {
+            char step = lurd.charAt(i);
+            if (step >= '0' && step <= '9') {
+                int digit = step - '0';
+                if (run == 0 && digit == 0) {
+                    throw new IllegalArgumentException("A run length cannot start with 0: " + lurd);
+                }
+                // Also keeps the run from overflowing
+                if (run > (maxMoves - line.size() - digit) / 10) {
+                    throw new IllegalArgumentException("More than " + maxMoves + " moves: " + lurd);
+                }
+                run = run * 10 + digit;
+                continue;
+            }
+
+            int direction = LURD.indexOf(Character.toLowerCase(step));
+            if (direction < 0) {
+                throw new IllegalArgumentException("Not a move: " + step);
+            }
+            int count = Math.max(run, 1);
+            if (count > maxMoves - line.size()) {
+                throw new IllegalArgumentException("More than " + maxMoves + " moves: " + lurd);
+            }
+            boolean push = Character.isUpperCase(step);
+            for (; count > 0; count--) {
+                line.add(direction, push);
+            }
+            run = 0;
+        }
+
+        if (run != 0) {
+            throw new IllegalArgumentException("A run length is not followed by a move: " + lurd);
+        }
+        return line;
+    }
+
+    /**
+     * Write moves in LURD notation, with run lengths.
+     * @param moves     the line of moves
+     * @return the moves
+     */
+    public static String formatMoves(MoveLog moves) {
+        StringBuilder lurd = new StringBuilder();
+        int i = 0;
+        while (i < moves.size()) {
+            int move = moves.get(i);
+            int run = 1;
+            while (i + run < moves.size() && moves.get(i + run) == move) {
+                run++;
+            }
+
+            if (run > 1) {
+                lurd.append(run);
+            }
+            char step = LURD.charAt(MoveLog.directionOf(move));
+            lurd.append(MoveLog.isPush(move) ? Character.toUpperCase(step) : step);
+            i += run;
+        }
+        return lurd.toString();
+    }
+
+    /**
+     * Add the replay at the end of a file of replays, making the file if it does not exist.
+     * @param file  the file of replays
+     * @throws IOException  if the file cannot be written
+     */
+    public void appendTo(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(toString());
+            writer.newLine();
+        }
+    }
+
+    /**
+     * Write the line of the replay.
+     * @return the line, without line break
+     */
+    @Override
+    public String toString() {
+        return VERSION + SEPARATOR + Long.toHexString(puzzleHash) + SEPARATOR + claimedMoves
+                + SEPARATOR + timeMillis + SEPARATOR + player + SEPARATOR + formatMoves(moves);
+    }
+}
@@ -0,0 +1,164 @@
+package com.sokoban.game;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The class ReplayVerifier plays replays again on their level to check they really solve it.
+ * It runs without any toolkit. Each level is played in place and reset before the next replay,
+ * so the verifier should have levels of its own and be used by one thread at a time.
+ * @author Yuyang LIN
+ */
+public final class ReplayVerifier {
+
+    /**
+     * The enum Verdict shows the outcome of checking a replay.
+     */
+    public enum Verdict {
+
+        /** The replay solves its level in no more moves than claimed */
+        VALID,
+
+        /** No level has the hash of the replay */
+        UNKNOWN_LEVEL,
+
+        /** A move goes into a wall, pushes what cannot be pushed, or comes after the level is solved */
+        ILLEGAL_MOVE,
+
+        /** All the moves are played but the level is not solved */
+        NOT_SOLVED,
+
+        /** The score claims fewer moves than the replay has */
+        WRONG_MOVE_COUNT
+    }
+
+    private static final int[] DELTA_ROW = {-1, 0, 1, 0};
+    private static final int[] DELTA_COL = {0, 1, 0, -1};
+
+    private final List<Level> levels;
+    private final Map<Long, Integer> indexByHash = new HashMap<>();
+
+    /**
+     * Constructor to check replays against a set of levels, each of them is built once here.
+     * @param levels    the levels, not played anywhere else
+     */
+    public ReplayVerifier(List<Level> levels) {
+        this.levels = levels;
+        for (int i = 0; i < levels.size(); i++) {
+            Level level = levels.get(i);
+            level.reset();
+            indexByHash.put(level.getPuzzleHash(), i);
+        }
+    }
+
+    /**
+     * Play a replay again on its level.
+     * The claimed moves count the undone moves too, so they can only be more than the moves of the replay.
+     * @param replay    the replay to check
+     * @return the verdict
+     */
+    public Verdict verify(Replay replay) {
+        Integer index = indexByHash.get(replay.getPuzzleHash());
+        if (index == null) {
+            return Verdict.UNKNOWN_LEVEL;
+        }
+
+        MoveLog moves = replay.getMoves();
+        if (replay.getClaimedMoves() < moves.size()) {
+            return Verdict.WRONG_MOVE_COUNT;
+        }
+
+        Level level = levels.get(index);
+        level.reset();
+        try {
+            for (int i = 0; i < moves.size(); i++) {
+                if (level.isComplete() || !canPlay(level, moves.get(i))) {
+                    return Verdict.ILLEGAL_MOVE;
+                }
+                level.applyMove(moves.get(i));
+            }
+            return level.isComplete() ? Verdict.VALID : Verdict.NOT_SOLVED;
+        } finally {
+            level.reset();
+        }
+    }
+
+    /**
+     * Check a move can be played with the same rules as {@link StartMeUp#move(int)}.
+     * @param level     the level played
+     * @param move  the move, see {@link MoveLog#encode(int, boolean)}
+     * @return {@code true} if the move can be played, {@code false} otherwise
+     */
+    private static boolean canPlay(Level level, int move) {
+        PackedBoard board = level.getBoard();
+        int direction = MoveLog.directionOf(move);
+        int row = level.getKeeperPosition().x + DELTA_ROW[direction];
+        int col = level.getKeeperPosition().y + DELTA_COL[direction];
+        if (board.isOutOfBounds(row, col)) {
+            return false;
+        }
+
+        GameObject target = level.getObjectAt(row, col);
+        if (!MoveLog.isPush(move)) {
+            return target == GameObject.FLOOR;
+        }
+
+        row += DELTA_ROW[direction];
+        col += DELTA_COL[direction];
+        return target == GameObject.CRATE && !board.isOutOfBounds(row, col)
+                && level.getObjectAt(row, col) == GameObject.FLOOR;
+    }
+
+    /**
+     * Check a file of replays against a game file and print how many of each verdict were found.
+     * @param args  the game file, then the file of replays
+     * @throws IOException  if a file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: ReplayVerifier <game file> <replay file>");
+            return;
+        }
+
+        ReplayVerifier verifier;
+        try (InputStream input = Files.newInputStream(Paths.get(args[0]))) {
+            byte[] data = input.readAllBytes();
+            verifier = new ReplayVerifier(BinaryPack.isPack(ByteBuffer.wrap(data))
+                    ? new BinaryPack(ByteBuffer.wrap(data)) : new LevelSource(data));
+        }
+
+        Map<Verdict, Integer> counts = new EnumMap<>(Verdict.class);
+        int malformed = 0;
+        long start = System.nanoTime();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    counts.merge(verifier.verify(Replay.parse(line)), 1, Integer::sum);
+                } catch (IllegalArgumentException e) {
+                    malformed++;
+                }
+            }
+        }
+
+        for (Map.Entry<Verdict, Integer> count : counts.entrySet()) {
+            System.out.println(count.getKey() + ": " + count.getValue());
+        }
+        if (malformed > 0) {
+            System.out.println("MALFORMED: " + malformed);
+        }
+        System.out.printf("Checked in %d ms\n", (System.nanoTime() - start) / 1_000_000);
+    }
+}
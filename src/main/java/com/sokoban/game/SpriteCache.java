@@ -0,0 +1,155 @@
+package com.sokoban.game;
+
+import javafx.scene.image.Image;
+import javafx.scene.paint.ImagePattern;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The class SpriteCache decodes each sprite of the game once and shares it among all the tiles.
+ * Sprites are keyed by their resource path, which already tells the tile type,
+ * the wall colour and the keeper direction apart.
+ * Images and patterns never change once made, so the same one can fill any number of tiles.
+ * @author Yuyang LIN
+ */
+public final class SpriteCache {
+
+    private static final int D_UP = 0;
+    private static final int D_RIGHT = 1;
+    private static final int D_DOWN = 2;
+    private static final int D_LEFT = 3;
+    private static final Map<String, Image> IMAGES = new ConcurrentHashMap<>();
+    private static final Map<String, ImagePattern> PATTERNS = new ConcurrentHashMap<>();
+
+    /**
+     * Private constructor, the class only has static methods.
+     */
+    private SpriteCache() {
+    }
+
+    /**
+     * Get the resource path of the sprite of an object.
+     * @param object    the object to draw
+     * @param wallColour    the colour of the walls, {@code null} for the default one
+     * @param direction     the direction the keeper faces
+     * @return the path of the sprite, {@code null} if the object has none
+     */
+    public static String pathOf(GameObject object, String wallColour, int direction) {
+        switch (object) {
+            case WALL:
+                return wallPath(wallColour);
+
+            case CRATE:
+                return "/images/box1.png";
+
+            case DIAMOND:
+                return "/images/target1.png";
+
+            case KEEPER:
+                return keeperPath(direction);
+
+            case FLOOR:
+                return "/images/ground3.png";
+
+            case CRATE_ON_DIAMOND:
+                return "/images/box5.png";
+
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Get the resource path of the keeper facing a direction.
+     * @param direction     the direction the keeper faces
+     * @return String of file path of the keeper in different directions
+     */
+    public static String keeperPath(int direction) {
+        switch (direction) {
+            case D_UP:
+                return "/images/mUP.png";
+            case D_RIGHT:
+                return "/images/mRight.png";
+            case D_DOWN:
+                return "/images/mDown.png";
+            case D_LEFT:
+                return "/images/mLeft.png";
+            default:
+                return "/images/mDown.png";
+        }
+    }
+
+    /**
+     * Get the resource path of the walls of a colour.
+     * @param wallColour    the colour of the walls, {@code null} for the default one
+     * @return String of file path of wall colours
+     */
+    public static String wallPath(String wallColour) {
+        if (wallColour == null) {
+            return "/images/wall2.png";
+        }
+        switch (wallColour) {
+            case "Yellow":
+                return "/images/wall1.png";
+
+            case "Brown":
+                return "/images/wall3.png";
+
+            case "Grey":
+                return "/images/wall4.png";
+
+            default:
+                return "/images/wall2.png";
+        }
+    }
+
+    /**
+     * Get the image of a sprite, decoding it the first time.
+     * @param path  resource path of the sprite, such as {@code /images/box1.png}
+     * @return the shared image
+     * @throws URISyntaxException   URI not found
+     */
+    public static Image getImage(String path) throws URISyntaxException {
+        Image image = IMAGES.get(path);
+        if (image == null) {
+            URL resource = SpriteCache.class.getResource(path);
+            if (resource == null) {
+                throw new IllegalArgumentException("The sprite " + path + " does not exist.");
+            }
+            image = new Image(resource.toURI().toString());
+            Image previous = IMAGES.putIfAbsent(path, image);
+            if (previous != null) {
+                image = previous;
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Get the pattern that fills a tile with a sprite, making it the first time.
+     * @param path  resource path of the sprite, such as {@code /images/box1.png}
+     * @return the shared pattern
+     * @throws URISyntaxException   URI not found
+     */
+    public static ImagePattern getPattern(String path) throws URISyntaxException {
+        ImagePattern pattern = PATTERNS.get(path);
+        if (pattern == null) {
+            pattern = new ImagePattern(getImage(path));
+            ImagePattern previous = PATTERNS.putIfAbsent(path, pattern);
+            if (previous != null) {
+                pattern = previous;
+            }
+        }
+        return pattern;
+    }
+
+    /**
+     * Get the number of sprites decoded so far.
+     * @return {@code IMAGES.size()}    number of images in the cache
+     */
+    public static int size() {
+        return IMAGES.size();
+    }
+}
@@ -1,28 +1,41 @@
 package com.sokoban.game;
 
 import com.sokoban.logger.GameLogger;
-import com.sokoban.model.MusicModel;
-import javafx.scene.control.Alert;
-import javafx.scene.control.Alert.AlertType;
-import javafx.scene.input.KeyCode;
-import javax.sound.sampled.LineUnavailableException;
 import java.awt.*;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
  * The class StartMeUp create a gameEngine for the game setup.
+ * The engine does not depend on JavaFX, so games can be played without any toolkit,
+ * the user interface follows the game through {@link GameListener}s.
  * @author Yuyang LIN-modified
  */
 public class StartMeUp {
 
-    private static StartMeUp m_instance;
+    /**
+     * The enum DeadSquareMode shows what happens when a crate is pushed onto a dead square,
+     * a cell from which it can never reach a diamond.
+     */
+    public enum DeadSquareMode {
+
+        /** The push is made as usual */
+        OFF,
+
+        /** The push is made and flagged, see {@link StartMeUp#isDeadPush()} */
+        FLAG,
+
+        /** The push is refused, or only flagged when the level has spare crates */
+        REFUSE
+    }
+
     public static final String GAME_NAME = "BestSokobanEverV6";
     public static GameLogger logger;
-    private static boolean m_debug = false;
+    private boolean debug = false;
     private Level currentLevel;
     private String mapSetName;
     private List<Level> levels;
@@ -30,25 +43,32 @@ public class StartMeUp {
     private boolean levelComplete = false;
     private int movesCount = 0;
     private long timeCount = 0;
-    private MusicModel music;
+    private final List<GameListener> listeners = new ArrayList<>(1);
     private short direction;
-    private LinkedList<Short> keeperDirection;
-    private LinkedList<String> target;
+    private MoveTree history;
+    private MoveLog lastSolution;
+    private long lastPuzzleHash;
+    private final List<Integer> checkpoints = new ArrayList<>(0);
     private long timeStart;
     private long timeEnd;
     private int currentMoves;
-    private final short D_UP = 0;
-    private final short D_RIGHT = 1;
-    private final short D_DOWN = 2;
-    private final short D_LEFT = 3;
+    private DeadSquareMode deadSquareMode = DeadSquareMode.OFF;
+    private boolean deadPush = false;
+    private boolean deadlocked = false;
+    private static final short D_UP = 0;
+    private static final short D_RIGHT = 1;
+    private static final short D_DOWN = 2;
+    private static final short D_LEFT = 3;
+    private static final int[] DELTA_ROW = {-1, 0, 1, 0};
+    private static final int[] DELTA_COL = {0, 1, 0, -1};
     private final int TIME_CAST = 1000;
 
     /**
-     * Check if debug mode is active.
-     * @return {@code m_debug}  a boolean indicating if debug mode is on
+     * Check if debug mode is active in this game.
+     * @return {@code debug}  a boolean indicating if debug mode is on
      */
-    public static boolean isDebugActive() {
-        return m_debug;
+    public boolean isDebugActive() {
+        return debug;
     }
 
     /**
@@ -84,19 +104,32 @@ public class StartMeUp {
     }
 
     /**
-     * Get the linked list with all the keeper directions recorded.
-     * @return {@code keeperDirection}  all the directions of keeper
+     * Get the line of moves played in the current level, followed by the moves redone by default.
+     * @return {@code history.toMoveLog()}  the moves of the keeper
+     */
+    public MoveLog getMoveLog() {
+        return history.toMoveLog();
+    }
+
+    /**
+     * Get the replay of the last level completed, with the moves and time counted for its score.
+     * The moves are counted until the count starts again for the next level.
+     * @param player    the name of the player
+     * @return the replay, {@code null} if no level was completed yet
      */
-    public LinkedList<Short> getKeeperDirection() {
-        return keeperDirection;
+    public Replay getLastReplay(String player) {
+        if (lastSolution == null) {
+            return null;
+        }
+        return new Replay(lastPuzzleHash, currentMoves, timeEnd - timeStart, player, lastSolution);
     }
 
     /**
-     * Get the linked list with all the objects in front of the keeper.
-     * @return {@code target}  all the objects
+     * Get the tree of all the lines of moves played in the current level.
+     * @return {@code history}
      */
-    public LinkedList<String> getTarget() {
-        return target;
+    public MoveTree getHistory() {
+        return history;
     }
 
     /**
@@ -171,14 +204,6 @@ public class StartMeUp {
         return levels;
     }
 
-    /**
-     * Get music model.
-     * @return {@code music}    A model of music playing
-     */
-    public MusicModel getMusic() {
-        return music;
-    }
-
     /**
      * Get if the game is completed.
      * @return {@code true} if the game is completed, {@code false} otherwise
@@ -203,94 +228,95 @@ public class StartMeUp {
         this.levelComplete = levelComplete;
     }
 
+    /**
+     * Get what happens when a crate is pushed onto a dead square.
+     * @return {@code deadSquareMode}
+     */
+    public DeadSquareMode getDeadSquareMode() {
+        return deadSquareMode;
+    }
+
+    /**
+     * Set what happens when a crate is pushed onto a dead square.
+     * @param deadSquareMode    the mode of dead square pushes
+     */
+    public void setDeadSquareMode(DeadSquareMode deadSquareMode) {
+        this.deadSquareMode = deadSquareMode;
+    }
+
+    /**
+     * Check if the last move pushed a crate onto a dead square,
+     * only recorded when the mode is not {@code OFF}.
+     * @return {@code true} if the last push was onto a dead square, {@code false} otherwise
+     */
+    public boolean isDeadPush() {
+        return deadPush;
+    }
+
+    /**
+     * Check if the last move pushed a crate into a freeze or corral deadlock,
+     * so the level can no longer be solved without undoing.
+     * @return {@code true} if the last push left the level unsolvable, {@code false} otherwise
+     */
+    public boolean isDeadlocked() {
+        return deadlocked;
+    }
+
     /**
      * Turn on or turn off the debug version.
      */
     public void toggleDebug() {
-        m_debug = !m_debug;
+        debug = !debug;
     }
 
     /**
      * Constructor to initialize the game from the input stream.
      * @param input     Input stream
-     * @param production    the initial state of the game
      */
-    private StartMeUp(InputStream input, boolean production) {
+    public StartMeUp(InputStream input) {
         try {
             logger = GameLogger.getInstance();
             levels = loadGameFile(input);
             currentLevel = getNextLevel();
-            keeperDirection = new LinkedList<>();
-            target = new LinkedList<>();
-            music = new MusicModel();
-
-            if (production) {
-                music.createPlayer();
-                timeStart = System.currentTimeMillis();
-            }
+            history = new MoveTree(currentLevel);
+            timeStart = System.currentTimeMillis();
         } catch (IOException x) {
             System.out.println("Cannot create logger.");
         } catch (NoSuchElementException e) {
             logger.warning("Cannot load the default save file: " + e.getStackTrace());
-        } catch (LineUnavailableException e) {
-            logger.warning("Cannot load the music file: " + e.getStackTrace());
         }
     }
 
     /**
-     * A public method to get the instance of the class.
-     * (Singleton Pattern)
+     * Start a new game from the input stream and close it.
+     * Every call makes a new game, independent from the others, so many games can be played at once.
      * @param input     Input stream
-     * @return {@code m_instance}   the instance of the gameEngine
+     * @return {@code gameEngine}   the new gameEngine
      */
-    public static synchronized StartMeUp getInstance(InputStream input) {
-        m_instance = new StartMeUp(input, true);
+    public static StartMeUp getInstance(InputStream input) {
+        StartMeUp gameEngine = new StartMeUp(input);
         try {
             input.close();
         } catch (IOException e) {
             e.printStackTrace();
         }
-        return m_instance;
+        return gameEngine;
     }
 
     /**
-     * Get the input from the keyboard and set moves according to input.
-     * @param code  Keyboard code
+     * Add a listener told about what happens in the game.
+     * @param listener  the listener to add
      */
-    public void handleKey(KeyCode code) {
-        switch (code) {
-            case UP:
-                move(new Point(-1, 0));
-                direction = D_UP;
-                break;
-
-            case RIGHT:
-                move(new Point(0, 1));
-                direction = D_RIGHT;
-                break;
-
-            case DOWN:
-                move(new Point(1, 0));
-                direction = D_DOWN;
-                break;
-
-            case LEFT:
-                move(new Point(0, -1));
-                direction = D_LEFT;
-                break;
-
-            default:
-                // Alert if the keycode is not the four keys above
-                Alert all = new Alert(AlertType.WARNING);
-                all.setTitle("Warning");
-                all.setHeaderText("Oops");
-                all.setContentText("Invalid Keyboard Input!");
-                all.showAndWait();
-        }
+    public void addListener(GameListener listener) {
+        listeners.add(listener);
+    }
 
-        if (isDebugActive()) {
-            System.out.println(code);
-        }
+    /**
+     * Remove a listener added before.
+     * @param listener  the listener to remove
+     */
+    public void removeListener(GameListener listener) {
+        listeners.remove(listener);
     }
 
     /**
@@ -298,21 +324,44 @@ public class StartMeUp {
      * @param delta     The unit point indicating the direction
      */
     public void move(Point delta) {
+        for (short d = D_UP; d <= D_LEFT; d++) {
+            if (DELTA_ROW[d] == delta.x && DELTA_COL[d] == delta.y) {
+                move(d);
+                return;
+            }
+        }
+
+        logger.warning("The delta " + delta + " is not a unit direction.");
+    }
+
+    /**
+     * Change the position of the keeper object to one direction,
+     * without allocating any object on the way.
+     * @param moveDirection     direction of the move, from {@code D_UP} to {@code D_LEFT}
+     */
+    public void move(int moveDirection) {
+        deadPush = false;
+        deadlocked = false;
+        direction = (short) moveDirection;
         if (isGameComplete()) {
             return;
         }
 
         Point keeperPosition = currentLevel.getKeeperPosition();
-        GameObject keeper = currentLevel.getObjectAt(keeperPosition);
-        Point targetObjectPoint = GameGrid.translatePoint(keeperPosition, delta);
-        GameObject keeperTarget = currentLevel.getObjectAt(targetObjectPoint);
+        int dRow = DELTA_ROW[moveDirection];
+        int dCol = DELTA_COL[moveDirection];
+        int keeperRow = keeperPosition.x;
+        int keeperCol = keeperPosition.y;
+        int targetRow = keeperRow + dRow;
+        int targetCol = keeperCol + dCol;
+        GameObject keeperTarget = currentLevel.getObjectAt(targetRow, targetCol);
 
-        if (StartMeUp.isDebugActive()) {
+        if (isDebugActive()) {
             System.out.println("Current level state:");
             System.out.println(currentLevel.toString());
             System.out.println("Keeper pos: " + keeperPosition);
-            System.out.println("Movement source obj: " + keeper);
-            System.out.printf("Target object: %s at [%s]", keeperTarget, targetObjectPoint);
+            System.out.println("Movement source obj: " + GameObject.KEEPER);
+            System.out.printf("Target object: %s at [%d, %d]", keeperTarget, targetRow, targetCol);
         }
 
         boolean keeperMoved = false;
@@ -324,18 +373,27 @@ public class StartMeUp {
 
             case CRATE:
 
-                GameObject crateTarget = currentLevel.getTargetObject(targetObjectPoint, delta);
+                GameObject crateTarget = currentLevel.getObjectAt(targetRow + dRow, targetCol + dCol);
                 if (crateTarget != GameObject.FLOOR) {
                     break;
                 }
 
-                currentLevel.moveGameObjectBy(keeperTarget, targetObjectPoint, delta);
-                currentLevel.moveGameObjectBy(keeper, keeperPosition, delta);
+                if (deadSquareMode != DeadSquareMode.OFF
+                        && currentLevel.isDeadSquare(targetRow + dRow, targetCol + dCol)) {
+                    if (deadSquareMode == DeadSquareMode.REFUSE && !currentLevel.hasSpareCrates()) {
+                        break;
+                    }
+                    deadPush = true;
+                }
+
+                currentLevel.moveGameObjectTo(keeperTarget, targetRow, targetCol,
+                        targetRow + dRow, targetCol + dCol);
+                currentLevel.moveGameObjectTo(GameObject.KEEPER, keeperRow, keeperCol, targetRow, targetCol);
                 keeperMoved = true;
                 break;
 
             case FLOOR:
-                currentLevel.moveGameObjectBy(keeper, keeperPosition, delta);
+                currentLevel.moveGameObjectTo(GameObject.KEEPER, keeperRow, keeperCol, targetRow, targetCol);
                 keeperMoved = true;
                 break;
 
@@ -346,21 +404,25 @@ public class StartMeUp {
         }
 
         if (keeperMoved) {
-            keeperPosition.translate((int) delta.getX(), (int) delta.getY());
-            if ((int)delta.getX() == -1 && (int)delta.getY() == 0) {
-                keeperDirection.add(D_UP);
-            } else if ((int)delta.getX() == 0 && (int)delta.getY() == 1) {
-                keeperDirection.add(D_RIGHT);
-            } else if ((int)delta.getX() == 1 && (int)delta.getY() == 0) {
-                keeperDirection.add(D_DOWN);
-            }else if ((int)delta.getX() == 0 && (int)delta.getY() == -1) {
-                keeperDirection.add(D_LEFT);
+            keeperPosition.translate(dRow, dCol);
+            if (keeperTarget == GameObject.CRATE) {
+                deadlocked = currentLevel.isDeadlockedAfterPush(targetRow + dRow, targetCol + dCol);
+                if (deadlocked && isDebugActive()) {
+                    System.out.println("Deadlock after the push.");
+                }
             }
-
-            target.add(String.valueOf(keeperTarget));
+            history.add(MoveLog.encode(moveDirection, keeperTarget == GameObject.CRATE));
 
             currentMoves++;
             movesCount++;
+            for (int i = 0; i < listeners.size(); i++) {
+                listeners.get(i).onMove(direction, keeperTarget);
+            }
+            if (deadlocked) {
+                for (int i = 0; i < listeners.size(); i++) {
+                    listeners.get(i).onDeadlock();
+                }
+            }
 
             if (currentLevel.isComplete()) {
                 levelComplete = true;
@@ -371,79 +433,183 @@ public class StartMeUp {
                 timeEnd = System.currentTimeMillis();
                 long timeInterval = (timeEnd - timeStart) / TIME_CAST;
                 timeCount += timeInterval;
-                keeperDirection.clear();
-                target.clear();
+                checkpoints.clear();
+                lastSolution = history.toMoveLog();
+                lastPuzzleHash = currentLevel.getPuzzleHash();
+                Level completed = currentLevel;
                 currentLevel = getNextLevel();
+                if (currentLevel != null) {
+                    history = new MoveTree(currentLevel);
+                }
+                for (int i = 0; i < listeners.size(); i++) {
+                    listeners.get(i).onLevelComplete(completed);
+                }
+                if (gameComplete) {
+                    for (int i = 0; i < listeners.size(); i++) {
+                        listeners.get(i).onGameComplete();
+                    }
+                }
             }
         }
     }
 
     /**
-     * Read the game file and parse it to game objects.
-     * @param input     Input stream
-     * @return {@code levels}   All the levels in the file
+     * Move the keeper back to the previous position, pulling back the crate it pushed if any.
+     * An undo counts as one more move.
+     * @return {@code true} if a move was undone, {@code false} if there was none in this level
      */
-    public List<Level> loadGameFile(InputStream input) {
-        List<Level> levels = new ArrayList<>(5);
-        int levelIndex = 0;
-
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input))) {
-            boolean parsedFirstLevel = false;
-            List<String> rawLevel = new ArrayList<>();
-            String levelName = "";
-
-            while (true) {
-                String line = reader.readLine();
-
-                // Break the loop if EOF is reached
-                if (line == null) {
-                    if (rawLevel.size() != 0) {
-                        Level parsedLevel = new Level(levelName, levelIndex++, rawLevel);
-                        levels.add(parsedLevel);
-                    }
-                    break;
-                }
+    public boolean undo() {
+        if (isGameComplete() || history.size() == 0) {
+            return false;
+        }
 
-                if (line.contains("MapSetName")) {
-                    mapSetName = line.replace("MapSetName: ", "");
-                    continue;
-                }
+        currentLevel.revertMove(history.undo());
+        deadPush = false;
+        deadlocked = false;
 
-                if (line.contains("LevelName")) {
-                    if (parsedFirstLevel) {
-                        Level parsedLevel = new Level(levelName, levelIndex++, rawLevel);
-                        levels.add(parsedLevel);
-                        rawLevel.clear();
-                    } else {
-                        parsedFirstLevel = true;
-                    }
+        // penalty for using undo
+        movesCount++;
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onUndo();
+        }
+        return true;
+    }
 
-                    levelName = line.replace("LevelName: ", "");
-                    continue;
-                }
+    /**
+     * Play again the last move undone, along the branch last left, it counts as a move.
+     * @return {@code true} if a move was redone, {@code false} if there was none or it can no longer be played
+     */
+    public boolean redo() {
+        if (isGameComplete() || history.peekRedo() == MoveLog.NO_MOVE) {
+            return false;
+        }
+
+        int moves = movesCount;
+        move(MoveLog.directionOf(history.peekRedo()));
+        return movesCount > moves;
+    }
+
+    /**
+     * Put the current level back as it was before the first move, at once.
+     * Every move stepped back counts as an undo, and can be redone.
+     * @return {@code true} if the level was reset, {@code false} if there was no move to step back
+     */
+    public boolean resetLevel() {
+        return gotoNode(MoveTree.ROOT);
+    }
+
+    /**
+     * Remember the current state of the level, to come back to it later.
+     * @return index of the checkpoint
+     */
+    public int addCheckpoint() {
+        history.keepSnapshot();
+        checkpoints.add(history.getCurrent());
+        return checkpoints.size() - 1;
+    }
 
-                line = line.trim();
-                line = line.toUpperCase();
-                // If the line contains at least 2 WALLS, add it to the list
-                if (line.matches(".*W.*W.*")) {
-                    rawLevel.add(line);
+    /**
+     * Get the number of checkpoints in the current level.
+     * @return {@code checkpoints.size()}
+     */
+    public int getCheckpointCount() {
+        return checkpoints.size();
+    }
+
+    /**
+     * Put the current level back to a checkpoint, at once, even from another branch.
+     * @param index     index of the checkpoint
+     * @return {@code true} if the level was put back, {@code false} if there is no such checkpoint
+     */
+    public boolean gotoCheckpoint(int index) {
+        if (index < 0 || index >= checkpoints.size()) {
+            return false;
+        }
+        return gotoNode(checkpoints.get(index));
+    }
+
+    /**
+     * Put the current level in the state of any node of the history.
+     * The moves stepped back count as undos and the moves stepped forward as moves, as one by one.
+     * @param node  the node, see {@link #getHistory()}
+     * @return {@code true} if the level changed, {@code false} if it already was in that state
+     */
+    public boolean gotoNode(int node) {
+        int current = history.getCurrent();
+        if (isGameComplete() || node == current) {
+            return false;
+        }
+
+        int ancestor = history.commonAncestor(current, node);
+        int back = history.depthOf(current) - history.depthOf(ancestor);
+        int forward = history.depthOf(node) - history.depthOf(ancestor);
+        history.jumpTo(node);
+        movesCount += back + forward;
+        currentMoves += forward;
+        deadPush = false;
+        deadlocked = false;
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onRestore();
+        }
+        return true;
+    }
+
+    /**
+     * Read the game file and find its levels, each level is only parsed when it is first asked for.
+     * Binary packs are read too, and mapped to memory when they come from a file.
+     * @param input     Input stream
+     * @return {@code levels}   All the levels in the file
+     */
+    public List<Level> loadGameFile(InputStream input) {
+        List<Level> levels = new ArrayList<>(0);
+
+        try (InputStream in = input) {
+            String setName;
+            if (in instanceof FileInputStream && isPackFile(((FileInputStream) in).getChannel())) {
+                BinaryPack pack = BinaryPack.open(((FileInputStream) in).getChannel());
+                setName = pack.getMapSetName();
+                levels = pack;
+            } else {
+                byte[] data = in.readAllBytes();
+                if (BinaryPack.isPack(ByteBuffer.wrap(data))) {
+                    BinaryPack pack = new BinaryPack(ByteBuffer.wrap(data));
+                    setName = pack.getMapSetName();
+                    levels = pack;
+                } else {
+                    LevelSource source = new LevelSource(data);
+                    setName = source.getMapSetName();
+                    levels = source;
                 }
             }
 
+            if (setName != null) {
+                mapSetName = setName;
+            }
         } catch (IOException e) {
             logger.severe("Error trying to load the game file: " + e);
         } catch (NullPointerException e) {
             logger.severe("Cannot open the requested file: " + e);
         }
 
-        try {
-            input.close();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
         return levels;
     }
 
+    /**
+     * Check if a file is a binary pack, without moving the position of the channel.
+     * @param channel   the channel of the file
+     * @return {@code true} if it starts like a pack, {@code false} otherwise
+     * @throws IOException  if the file cannot be read
+     */
+    private static boolean isPackFile(FileChannel channel) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(Integer.BYTES);
+        int read = 0;
+        while (head.hasRemaining() && read >= 0) {
+            read = channel.read(head, head.position());
+        }
+        head.flip();
+        return BinaryPack.isPack(head);
+    }
+
     /**
      * Get the elements of next level.
      * @return {@code levels.get(0)} if it is the first level,
@@ -458,7 +624,11 @@ public class StartMeUp {
         int currentLevelIndex = currentLevel.getIndex();
         if (currentLevelIndex < levels.size() - 1) {
             levelComplete = true;
-            return levels.get(currentLevelIndex + 1);
+            Level next = levels.get(currentLevelIndex + 1);
+            if (isDebugActive()) {
+                System.out.printf("[LOADING LEVEL] LEVEL [%d]: %s\n", next.getIndex(), next.getName());
+            }
+            return next;
         }
         levelComplete = true;
         gameComplete = true;
@@ -471,8 +641,8 @@ public class StartMeUp {
      * @return {@code newGrid}  all of the game objects in the grid
      */
     public GameGrid getGrid(Level level) {
-        int col = level.getObjectsGrid().COLUMNS;
-        int row = level.getObjectsGrid().ROWS;
+        int col = level.getBoard().getHeight();
+        int row = level.getBoard().getWidth();
 
         GameGrid newGrid = new GameGrid(col, row);
         Level.LevelIterator newLevelIterator = (Level.LevelIterator) level.iterator();
@@ -0,0 +1,104 @@
+package com.sokoban.game;
+
+/**
+ * The class Zobrist gives the 64-bit keys used to hash the states of a level.
+ * A state is hashed by xor-ing the keys of all the crate cells and the key of the keeper cell,
+ * so a move only has to xor out the cells it leaves and xor in the cells it enters.
+ * @author Yuyang LIN
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x2545F4914F6CDD1DL;
+    private static final long GAMMA = 0x9E3779B97F4A7C15L;
+    private static final int KINDS = 4;
+    private static final int CRATE = 0;
+    private static final int KEEPER = 1;
+    private static final int WALL = 2;
+    private static final int DIAMOND = 3;
+
+    /**
+     * Private constructor, the class only has static methods.
+     */
+    private Zobrist() {
+    }
+
+    /**
+     * Get the key of a crate standing on the cell.
+     * @param index     index of the cell
+     * @return the 64-bit key
+     */
+    public static long crateKey(int index) {
+        return key(index, CRATE);
+    }
+
+    /**
+     * Get the key of the keeper standing on the cell.
+     * @param index     index of the cell
+     * @return the 64-bit key
+     */
+    public static long keeperKey(int index) {
+        return key(index, KEEPER);
+    }
+
+    /**
+     * Get the key of a wall on the cell.
+     * @param index     index of the cell
+     * @return the 64-bit key
+     */
+    public static long wallKey(int index) {
+        return key(index, WALL);
+    }
+
+    /**
+     * Get the key of a diamond on the cell.
+     * @param index     index of the cell
+     * @return the 64-bit key
+     */
+    public static long diamondKey(int index) {
+        return key(index, DIAMOND);
+    }
+
+    /**
+     * Get the key of the size of a board, so that boards of different shapes do not collide.
+     * @param width     number of columns
+     * @param height    number of rows
+     * @return the 64-bit key
+     */
+    public static long sizeKey(int width, int height) {
+        return mix(SEED ^ (((long) width << 32) | height));
+    }
+
+    /**
+     * Hash a set of crate cells.
+     * @param crates    indexes of the crate cells
+     * @return the xor of all the crate keys
+     */
+    public static long hashCrates(int[] crates) {
+        long hash = 0;
+        for (int crate : crates) {
+            hash ^= crateKey(crate);
+        }
+        return hash;
+    }
+
+    /**
+     * Get the key of one kind of object on the cell.
+     * @param index     index of the cell
+     * @param kind      kind of the object
+     * @return the 64-bit key
+     */
+    private static long key(int index, int kind) {
+        return mix(SEED + GAMMA * ((long) KINDS * index + kind));
+    }
+
+    /**
+     * Scramble the bits of a value, the finalizer of SplitMix64.
+     * @param z     the value to scramble
+     * @return the scrambled value
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
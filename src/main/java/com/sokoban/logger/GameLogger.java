@@ -2,27 +2,53 @@ package com.sokoban.logger;
 
 import com.sokoban.game.StartMeUp;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.logging.FileHandler;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 import java.util.logging.SimpleFormatter;
+import java.util.logging.StreamHandler;
 
 /**
  * The class GameLogger produces a log file and stores it.
+ * Logging a message only puts it in a ring with the time it was logged, so it never waits for the disk.
+ * A background thread writes the messages in batches and flushes the file once per batch.
+ * If the ring is full the message is dropped, and the number of dropped messages is logged next.
  * @author Yuyang LIN-modified
  */
 public class GameLogger extends Logger {
 
+    private static final int CAPACITY = 4096;
+    private static final int BATCH = 256;
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long CLOSE_MILLIS = 2000;
+    // DateTimeFormatter is immutable, so it is safe on any thread unlike SimpleDateFormat
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss").withZone(ZoneId.systemDefault());
+
     private static GameLogger m_instance;
     private static Logger m_logger = Logger.getLogger("GameLogger");
-    private DateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
-    private Calendar calendar = Calendar.getInstance();
+    private final LogQueue<LogRecord> queue = new LogQueue<>(CAPACITY);
+    private final AtomicLong dropped = new AtomicLong();
+    private final StreamHandler handler;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    // Only used by the writer thread: the time is formatted once per second
+    private long formattedSecond = Long.MIN_VALUE;
+    private String formattedTime;
 
     /**
-     * Constructor to initialize the log file.
+     * Constructor to initialize the log file and start the thread writing it.
      * @throws IOException
      */
     private GameLogger() throws IOException {
@@ -31,10 +57,14 @@ public class GameLogger extends Logger {
         File directory = new File(System.getProperty("user.dir") + "/" + "logs");
         directory.mkdirs();
 
-        FileHandler fh = new FileHandler(directory + "/" + StartMeUp.GAME_NAME + ".log");
-        m_logger.addHandler(fh);
-        SimpleFormatter formatter = new SimpleFormatter();
-        fh.setFormatter(formatter);
+        handler = new StreamHandler(new FileOutputStream(directory + "/" + StartMeUp.GAME_NAME + ".log"),
+                new SimpleFormatter());
+        m_logger.addHandler(handler);
+
+        writer = new Thread(this::writeRecords, "game-logger");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stop));
     }
 
     /**
@@ -53,11 +83,17 @@ public class GameLogger extends Logger {
     /**
      * Create a message with time and error messages on it.
      * @param message   the error message string
-     * @return {@code dateFormat.format(calendar.getTime()) + " -- " + message}
+     * @param millis    the time the message was logged
+     * @return {@code time + " -- " + message}
      *      a message with time and error messages on it
      */
-    private String createFormattedMessage(String message) {
-        return dateFormat.format(calendar.getTime()) + " -- " + message;
+    private String createFormattedMessage(String message, long millis) {
+        long second = Math.floorDiv(millis, 1000);
+        if (second != formattedSecond) {
+            formattedTime = DATE_FORMAT.format(Instant.ofEpochSecond(second));
+            formattedSecond = second;
+        }
+        return formattedTime + " -- " + message;
     }
 
     /**
@@ -65,7 +101,7 @@ public class GameLogger extends Logger {
      * @param message   A string of message
      */
     public void info(String message) {
-        m_logger.info(createFormattedMessage(message));
+        enqueue(Level.INFO, message);
     }
 
     /**
@@ -73,7 +109,7 @@ public class GameLogger extends Logger {
      * @param message   A string of message
      */
     public void warning(String message) {
-        m_logger.warning(createFormattedMessage(message));
+        enqueue(Level.WARNING, message);
     }
 
     /**
@@ -81,6 +117,63 @@ public class GameLogger extends Logger {
      * @param message   A string of message
      */
     public void severe(String message) {
-        m_logger.severe(createFormattedMessage(message));
+        enqueue(Level.SEVERE, message);
+    }
+
+    /**
+     * Put a message in the ring for the writer thread, with the time it is logged.
+     * @param level     the level of the message
+     * @param message   the message
+     */
+    private void enqueue(Level level, String message) {
+        if (!m_logger.isLoggable(level)) {
+            return;
+        }
+        LogRecord record = new LogRecord(level, message);
+        record.setLoggerName(m_logger.getName());
+        record.setSourceClassName(GameLogger.class.getName());
+        record.setSourceMethodName(level.getName().toLowerCase());
+        if (!queue.offer(record)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Write the records of the ring in batches until the logger stops, then write what is left.
+     */
+    private void writeRecords() {
+        List<LogRecord> batch = new ArrayList<>(BATCH);
+        while (running || !queue.isEmpty()) {
+            if (queue.drainTo(batch, BATCH) == 0) {
+                LockSupport.parkNanos(IDLE_NANOS);
+                continue;
+            }
+
+            for (LogRecord record : batch) {
+                record.setMessage(createFormattedMessage(record.getMessage(), record.getMillis()));
+                m_logger.log(record);
+            }
+            batch.clear();
+            long lost = dropped.getAndSet(0);
+            if (lost > 0) {
+                m_logger.warning(createFormattedMessage(lost + " log messages were dropped, the log was full.",
+                        System.currentTimeMillis()));
+            }
+            handler.flush();
+        }
+    }
+
+    /**
+     * Stop the writer thread once it has written all the records, when the game exits.
+     */
+    private void stop() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(CLOSE_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        handler.flush();
     }
-}
\ No newline at end of file
+}
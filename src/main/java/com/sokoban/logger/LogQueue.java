@@ -0,0 +1,85 @@
+package com.sokoban.logger;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The class LogQueue hands log records from any thread to the one thread that writes them.
+ * It is a bounded ring without locks: a thread adding a record claims a slot with a compare and set
+ * and never waits, the record is refused if the ring is full.
+ * Records are taken in the order their slots were claimed.
+ * @param <T>   the type of the records
+ * @author Yuyang LIN
+ */
+final class LogQueue<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    // Only changed by the thread taking the records
+    private volatile long taken;
+
+    /**
+     * Constructor to make an empty ring.
+     * @param capacity  the most records waiting at once, a power of two
+     */
+    LogQueue(int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("The capacity must be a power of two: " + capacity);
+        }
+        slots = new AtomicReferenceArray<>(capacity);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Add a record, from any thread.
+     * @param record    the record
+     * @return {@code true} if it was added, {@code false} if the ring is full
+     */
+    boolean offer(T record) {
+        long slot;
+        do {
+            slot = claimed.get();
+            if (slot - taken > mask) {
+                return false;
+            }
+        } while (!claimed.compareAndSet(slot, slot + 1));
+        slots.set((int) slot & mask, record);
+        return true;
+    }
+
+    /**
+     * Take the records waiting, from the one thread writing them.
+     * It stops at a slot claimed but not filled yet, the record is taken next time.
+     * @param batch     the list to add the records to
+     * @param max   the most records to take
+     * @return the number of records taken
+     */
+    int drainTo(List<? super T> batch, int max) {
+        long next = taken;
+        int count = 0;
+        while (count < max) {
+            int index = (int) next & mask;
+            T record = slots.get(index);
+            if (record == null) {
+                break;
+            }
+            // The slot is emptied before it can be claimed again
+            slots.set(index, null);
+            batch.add(record);
+            next++;
+            count++;
+        }
+        taken = next;
+        return count;
+    }
+
+    /**
+     * Check if no record is waiting or being added.
+     * @return {@code true} if every slot claimed was taken, {@code false} otherwise
+     */
+    boolean isEmpty() {
+        return taken == claimed.get();
+    }
+}
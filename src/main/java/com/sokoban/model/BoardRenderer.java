@@ -0,0 +1,243 @@
+package com.sokoban.model;
+
+import com.sokoban.game.GameObject;
+import com.sokoban.game.Level;
+import com.sokoban.game.PackedBoard;
+import javafx.scene.layout.GridPane;
+import java.awt.*;
+import java.util.Objects;
+
+/**
+ * The class BoardRenderer draws a level into the game grid and keeps what it shows,
+ * so that after a move only the cells the move changed are drawn again.
+ * The whole board is drawn when the level, the wall colour or the debug mode changes.
+ * A viewport can limit the drawing to the cells around the keeper: only the visible cells
+ * are drawn, and the view scrolls when the keeper comes close to its edge.
+ * @author Yuyang LIN
+ */
+public abstract class BoardRenderer {
+
+    /**
+     * The enum Kind lists the ways the board can be drawn.
+     */
+    public enum Kind {
+
+        /** One node per cell in the game grid */
+        GRID,
+
+        /** One canvas for the whole board */
+        CANVAS
+    }
+
+    /** The viewport size that shows the whole board */
+    public static final int NO_VIEWPORT = Integer.MAX_VALUE;
+
+    /** The size of a tile, in pixels */
+    static final int TILE = 30;
+
+    // The keeper is kept this many cells away from the edge of the view, when the view is big enough
+    private static final int SCROLL_MARGIN = 3;
+
+    protected final GridPane gameGrid;
+    private final int[] changedCells = new int[Level.MAX_CHANGED_CELLS];
+    private int maxColumns = NO_VIEWPORT;
+    private int maxRows = NO_VIEWPORT;
+    private Level shownLevel;
+    // The object shown on each visible cell, row by row from the top left of the view
+    private GameObject[] shownObjects;
+    private short shownDirection;
+    private String shownWallColour;
+    private boolean shownDebug;
+    private int firstRow;
+    private int firstCol;
+    private int viewRows;
+    private int viewCols;
+
+    /**
+     * Constructor to draw into a game grid.
+     * @param gameGrid  the grid holding the board
+     */
+    protected BoardRenderer(GridPane gameGrid) {
+        this.gameGrid = gameGrid;
+    }
+
+    /**
+     * Make a renderer of a kind.
+     * @param kind      the kind of renderer
+     * @param gameGrid  the grid holding the board
+     * @return the renderer
+     */
+    static BoardRenderer create(Kind kind, GridPane gameGrid) {
+        return kind == Kind.CANVAS ? new CanvasRenderer(gameGrid) : new GridRenderer(gameGrid);
+    }
+
+    /**
+     * Set the largest part of the board drawn at once, the board is drawn from scratch on the next draw.
+     * @param columns   number of visible columns, {@code NO_VIEWPORT} for all of them
+     * @param rows      number of visible rows, {@code NO_VIEWPORT} for all of them
+     */
+    public void setViewport(int columns, int rows) {
+        if (columns <= 0 || rows <= 0) {
+            throw new IllegalArgumentException("Viewport size must be positive.");
+        }
+        maxColumns = columns;
+        maxRows = rows;
+        shownLevel = null;
+    }
+
+    /**
+     * Draw the level, only the cells that changed since the last draw if it is the same level.
+     * @param level     the level to draw
+     * @param direction     the direction the keeper faces
+     * @param wallColour    the colour of the walls, {@code null} for the default one
+     * @param debug     {@code true} to draw the board in debug mode
+     * @return {@code true} if the whole board was drawn so its size may have changed, {@code false} otherwise
+     */
+    public boolean draw(Level level, short direction, String wallColour, boolean debug) {
+        PackedBoard board = level.getBoard();
+        int changedCount = level.takeChangedCells(changedCells);
+        Point keeper = level.getKeeperPosition();
+
+        if (level != shownLevel || shownDebug != debug || !Objects.equals(shownWallColour, wallColour)) {
+            shownLevel = level;
+            shownDirection = direction;
+            shownWallColour = wallColour;
+            shownDebug = debug;
+            viewRows = Math.min(board.getHeight(), maxRows);
+            viewCols = Math.min(board.getWidth(), maxColumns);
+            firstRow = scrollTo(0, keeper.x, viewRows, board.getHeight());
+            firstCol = scrollTo(0, keeper.y, viewCols, board.getWidth());
+            shownObjects = new GameObject[viewRows * viewCols];
+            for (int i = 0; i < shownObjects.length; i++) {
+                shownObjects[i] = objectAt(board, i);
+            }
+            drawBoard(viewRows, viewCols, shownObjects, direction);
+            return true;
+        }
+
+        int row = scrollTo(firstRow, keeper.x, viewRows, board.getHeight());
+        int col = scrollTo(firstCol, keeper.y, viewCols, board.getWidth());
+        if (row != firstRow || col != firstCol || changedCount < 0) {
+            // Scrolled, or too many changes to follow: every visible cell may differ
+            firstRow = row;
+            firstCol = col;
+            for (int i = 0; i < shownObjects.length; i++) {
+                drawIfChanged(board, i, direction);
+            }
+        } else {
+            for (int i = 0; i < changedCount; i++) {
+                int local = toLocal(board, changedCells[i]);
+                if (local >= 0) {
+                    drawIfChanged(board, local, direction);
+                }
+            }
+        }
+
+        if (direction != shownDirection) {
+            // The keeper turned, maybe without moving
+            int local = toLocal(board, board.indexOf(keeper.x, keeper.y));
+            if (local >= 0 && shownObjects[local] == GameObject.KEEPER) {
+                drawCell(local / viewCols, local % viewCols, GameObject.KEEPER, direction);
+            }
+            shownDirection = direction;
+        }
+        return false;
+    }
+
+    /**
+     * Get the colour of the walls drawn.
+     * @return {@code shownWallColour}, {@code null} for the default one
+     */
+    protected String getWallColour() {
+        return shownWallColour;
+    }
+
+    /**
+     * Check if the board is drawn in debug mode.
+     * @return {@code shownDebug}
+     */
+    protected boolean isDebug() {
+        return shownDebug;
+    }
+
+    /**
+     * Get the kind of this renderer.
+     * @return the kind of renderer
+     */
+    public abstract Kind getKind();
+
+    /**
+     * Draw all the visible cells from scratch.
+     * @param rows      number of visible rows
+     * @param columns   number of visible columns
+     * @param objects   the object to show on each visible cell, row by row
+     * @param direction     the direction the keeper faces
+     */
+    protected abstract void drawBoard(int rows, int columns, GameObject[] objects, short direction);
+
+    /**
+     * Draw one visible cell again.
+     * @param row   Row index in the view
+     * @param col   Column index in the view
+     * @param object    the object to show on the cell
+     * @param direction     the direction the keeper faces
+     */
+    protected abstract void drawCell(int row, int col, GameObject object, short direction);
+
+    /**
+     * Move the first row or column of the view so the keeper stays away from its edges.
+     * @param first     the first visible row or column
+     * @param keeper    the row or column of the keeper
+     * @param view      number of visible rows or columns
+     * @param size      number of rows or columns of the board
+     * @return the new first visible row or column
+     */
+    private static int scrollTo(int first, int keeper, int view, int size) {
+        int margin = Math.min(SCROLL_MARGIN, (view - 1) / 2);
+        if (keeper < first + margin) {
+            first = keeper - margin;
+        } else if (keeper > first + view - 1 - margin) {
+            first = keeper - (view - 1 - margin);
+        }
+        return Math.max(0, Math.min(first, size - view));
+    }
+
+    /**
+     * Get the visible cell of a board cell.
+     * @param board     the board drawn
+     * @param index     index of the cell on the board
+     * @return index of the cell in the view, {@code -1} if it is not visible
+     */
+    private int toLocal(PackedBoard board, int index) {
+        int row = board.rowOf(index) - firstRow;
+        int col = board.colOf(index) - firstCol;
+        if (row < 0 || col < 0 || row >= viewRows || col >= viewCols) {
+            return -1;
+        }
+        return row * viewCols + col;
+    }
+
+    /**
+     * Get the object on the board under a visible cell.
+     * @param board     the board drawn
+     * @param local     index of the cell in the view
+     * @return the object to show
+     */
+    private GameObject objectAt(PackedBoard board, int local) {
+        return board.getDisplayObjectAt(board.indexOf(firstRow + local / viewCols, firstCol + local % viewCols));
+    }
+
+    /**
+     * Draw a visible cell again if it no longer shows what is on the board.
+     * @param board     the board drawn
+     * @param local     index of the cell in the view
+     * @param direction     the direction the keeper faces
+     */
+    private void drawIfChanged(PackedBoard board, int local, short direction) {
+        GameObject object = objectAt(board, local);
+        if (object != shownObjects[local]) {
+            shownObjects[local] = object;
+            drawCell(local / viewCols, local % viewCols, object, direction);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.sokoban.model;
+
+import com.sokoban.game.GameObject;
+import com.sokoban.game.SpriteCache;
+import com.sokoban.game.StartMeUp;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.GridPane;
+import javafx.scene.paint.Color;
+import java.net.URISyntaxException;
+
+/**
+ * The class CanvasRenderer draws the visible board onto one canvas, so the scene graph holds
+ * a single node whatever the size of the level.
+ * A changed cell is drawn again by clearing and painting its own tile only.
+ * @author Yuyang LIN
+ */
+final class CanvasRenderer extends BoardRenderer {
+
+    private static final double STROKE_WID = 0.25;
+
+    private final Canvas canvas = new Canvas();
+
+    /**
+     * Constructor to draw into a game grid, which then only holds the canvas.
+     * @param gameGrid  the grid holding the board
+     */
+    CanvasRenderer(GridPane gameGrid) {
+        super(gameGrid);
+    }
+
+    @Override
+    public Kind getKind() {
+        return Kind.CANVAS;
+    }
+
+    @Override
+    protected void drawBoard(int rows, int columns, GameObject[] objects, short direction) {
+        gameGrid.getChildren().clear();
+        canvas.setWidth(columns * TILE);
+        canvas.setHeight(rows * TILE);
+        gameGrid.add(canvas, 0, 0);
+
+        canvas.getGraphicsContext2D().clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        for (int i = 0; i < objects.length; i++) {
+            drawCell(i / columns, i % columns, objects[i], direction);
+        }
+    }
+
+    @Override
+    protected void drawCell(int row, int col, GameObject object, short direction) {
+        String element = SpriteCache.pathOf(object, getWallColour(), direction);
+        if (element == null) {
+            String message = "Error in Level constructor. Object not recognized.";
+            StartMeUp.logger.severe(message);
+            throw new AssertionError(message);
+        }
+
+        GraphicsContext graphics = canvas.getGraphicsContext2D();
+        double x = col * TILE;
+        double y = row * TILE;
+        graphics.clearRect(x, y, TILE, TILE);
+        try {
+            graphics.drawImage(SpriteCache.getImage(element), x, y, TILE, TILE);
+        } catch (URISyntaxException e) {
+            e.printStackTrace();
+        }
+
+        if (isDebug()) {
+            graphics.setStroke(Color.RED);
+            graphics.setLineWidth(STROKE_WID);
+            graphics.strokeRect(x, y, TILE, TILE);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.sokoban.model;
+
+import com.sokoban.game.GameObject;
+import com.sokoban.game.GraphicObject;
+import javafx.scene.layout.GridPane;
+import java.net.URISyntaxException;
+
+/**
+ * The class GridRenderer draws the board as one GraphicObject node per cell in the game grid.
+ * Only the visible cells have a node, added row by row, so the node of a cell is found by its index in the view.
+ * A changed cell keeps its node and only changes its sprite, so a move adds and removes no nodes.
+ * @author Yuyang LIN
+ */
+final class GridRenderer extends BoardRenderer {
+
+    private int columns;
+
+    /**
+     * Constructor to draw into a game grid.
+     * @param gameGrid  the grid holding the board
+     */
+    GridRenderer(GridPane gameGrid) {
+        super(gameGrid);
+    }
+
+    @Override
+    public Kind getKind() {
+        return Kind.GRID;
+    }
+
+    @Override
+    protected void drawBoard(int rows, int columns, GameObject[] objects, short direction) {
+        this.columns = columns;
+        gameGrid.getChildren().clear();
+        for (int i = 0; i < objects.length; i++) {
+            gameGrid.add(createTile(objects[i], direction), i % columns, i / columns);
+        }
+    }
+
+    @Override
+    protected void drawCell(int row, int col, GameObject object, short direction) {
+        GraphicObject tile = (GraphicObject) gameGrid.getChildren().get(row * columns + col);
+        try {
+            if (tile.show(object, direction)) {
+                return;
+            }
+        } catch (URISyntaxException e) {
+            e.printStackTrace();
+        }
+
+        tile = createTile(object, direction);
+        GridPane.setConstraints(tile, col, row);
+        gameGrid.getChildren().set(row * columns + col, tile);
+    }
+
+    /**
+     * Create the node of an object.
+     * @param object    the object to show
+     * @param direction     the direction the keeper faces
+     * @return the node
+     */
+    private GraphicObject createTile(GameObject object, short direction) {
+        GraphicObject graphicObject = null;
+        try {
+            graphicObject = new GraphicObject(object, direction, getWallColour(), isDebug());
+        } catch (URISyntaxException e) {
+            e.printStackTrace();
+        }
+        return graphicObject;
+    }
+}
@@ -2,45 +2,96 @@ package com.sokoban.model;
 
 import com.sokoban.game.*;
 import com.sokoban.game.Dialog;
+import com.sokoban.score.Leaderboard;
+import com.sokoban.score.Score;
+import com.sokoban.score.ScoreStore;
+import javafx.application.Platform;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.layout.GridPane;
 import javafx.scene.effect.MotionBlur;
+import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
-import java.awt.*;
+import javax.sound.sampled.LineUnavailableException;
 import java.io.*;
-import java.net.URISyntaxException;
-import java.util.Scanner;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * The class StageModel Set up all the primary issues
  * and handle with the interaction between controllers and views.
+ * It listens to the game engine to warn the player about what happens in the game.
  * @author Yuyang LIN
  */
-public class StageModel {
+public class StageModel implements GameListener {
 
     private Stage primaryStage;
     private StartMeUp gameEngine;
+    private MusicModel music;
     private GridPane gameGrid;
     private File saveFile;
     private String name;
     private com.sokoban.game.Dialog dialogWindow;
-    public static String wallColour;
+    private String wallColour;
+    private final ExecutorService scoreThread = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "score-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final CompletableFuture<ScoreStore> scores;
     private final int TIME_CAST = 1000;
     private final int TOP_TEN = 10;
+    private static final int CLOSE_TIMEOUT = 10;
+    private static final String DEADLOCK_WARNING = "No way out: undo the push or reset the level";
+    private boolean deadlocked = false;
+    private static final String SCORE_RESOURCES = "score_lists/";
+    private final Path replayFile;
     private final short D_UP = 0;
     private final short D_RIGHT = 1;
     private final short D_DOWN = 2;
     private final short D_LEFT = 3;
+    private BoardRenderer renderer;
+    private int viewportColumns = BoardRenderer.NO_VIEWPORT;
+    private int viewportRows = BoardRenderer.NO_VIEWPORT;
+
+    /** The directory of the scores and replays when none is given: {@code .sokoban} in the home directory */
+    public static final Path DEFAULT_DATA_DIRECTORY = Paths.get(System.getProperty("user.home"), ".sokoban");
 
     /**
-     * Constructor to initialize the game grid.
+     * Constructor to initialize the game grid and load the scores from the default data directory.
      */
     public StageModel() {
+        this(DEFAULT_DATA_DIRECTORY);
+    }
+
+    /**
+     * Constructor to initialize the game grid and start loading the scores once, for the whole game.
+     * All the work on the scores runs on one background thread, in the order it was asked for,
+     * so the game never waits for the disk.
+     * @param dataDirectory     the directory of the scores and replays, made if it does not exist
+     */
+    public StageModel(Path dataDirectory) {
+        Path scoreDirectory = dataDirectory.resolve("scores");
+        this.scores = CompletableFuture.supplyAsync(() -> {
+            try {
+                seedScores(scoreDirectory);
+                return new ScoreStore(scoreDirectory);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, scoreThread);
+        this.replayFile = dataDirectory.resolve("replays.txt");
         this.gameGrid = new GridPane();
+        this.renderer = BoardRenderer.create(BoardRenderer.Kind.GRID, gameGrid);
         this.dialogWindow = new com.sokoban.game.Dialog(primaryStage, gameGrid);
         name = "";
     }
@@ -53,6 +104,60 @@ public class StageModel {
         return gameEngine;
     }
 
+    /**
+     * Get music model.
+     * @return {@code music}    A model of music playing
+     */
+    public MusicModel getMusic() {
+        return music;
+    }
+
+    /**
+     * Get the colour of the walls.
+     * @return {@code wallColour}, {@code null} for the default one
+     */
+    public String getWallColour() {
+        return wallColour;
+    }
+
+    /**
+     * Set the colour of the walls.
+     * @param wallColour    the colour of the walls
+     */
+    public void setWallColour(String wallColour) {
+        this.wallColour = wallColour;
+    }
+
+    /**
+     * Get the kind of renderer drawing the board.
+     * @return {@code renderer.getKind()}
+     */
+    public BoardRenderer.Kind getRendererKind() {
+        return renderer.getKind();
+    }
+
+    /**
+     * Set the kind of renderer drawing the board, the board is drawn from scratch on the next reload.
+     * @param kind      the kind of renderer
+     */
+    public void setRendererKind(BoardRenderer.Kind kind) {
+        if (kind != renderer.getKind()) {
+            renderer = BoardRenderer.create(kind, gameGrid);
+            renderer.setViewport(viewportColumns, viewportRows);
+        }
+    }
+
+    /**
+     * Only draw the cells around the keeper, scrolling as the keeper moves.
+     * @param columns   number of visible columns, {@code BoardRenderer.NO_VIEWPORT} for all of them
+     * @param rows      number of visible rows, {@code BoardRenderer.NO_VIEWPORT} for all of them
+     */
+    public void setViewport(int columns, int rows) {
+        renderer.setViewport(columns, rows);
+        viewportColumns = columns;
+        viewportRows = rows;
+    }
+
     /**
      * Get the gameGrid.
      * @return {@code gameGrid}
@@ -110,6 +215,14 @@ public class StageModel {
      */
     public void initializeGame(InputStream input) throws IOException {
         gameEngine = StartMeUp.getInstance(input);
+        gameEngine.addListener(this);
+        deadlocked = false;
+        music = new MusicModel();
+        try {
+            music.createPlayer();
+        } catch (LineUnavailableException e) {
+            StartMeUp.logger.warning("Cannot load the music file: " + e.getStackTrace());
+        }
         reloadGrid();
         input.close();
     }
@@ -119,12 +232,89 @@ public class StageModel {
      */
     public void setEventFilter() {
         primaryStage.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
-            gameEngine.handleKey(event.getCode());
-            GraphicObject.giveDirection(gameEngine.getDirection());
+            handleKey(event.getCode());
             reloadGrid();
         });
     }
 
+    /**
+     * Get the input from the keyboard and move the keeper according to input.
+     * @param code  Keyboard code
+     */
+    public void handleKey(KeyCode code) {
+        switch (code) {
+            case UP:
+                gameEngine.move(D_UP);
+                break;
+
+            case RIGHT:
+                gameEngine.move(D_RIGHT);
+                break;
+
+            case DOWN:
+                gameEngine.move(D_DOWN);
+                break;
+
+            case LEFT:
+                gameEngine.move(D_LEFT);
+                break;
+
+            default:
+                // Alert if the keycode is not the four keys above
+                Alert all = new Alert(AlertType.WARNING);
+                all.setTitle("Warning");
+                all.setHeaderText("Oops");
+                all.setContentText("Invalid Keyboard Input!");
+                all.showAndWait();
+        }
+
+        if (gameEngine.isDebugActive()) {
+            System.out.println(code);
+        }
+    }
+
+    /**
+     * Get the warning to show under the menu, it stays until the push is undone or the level is put back.
+     * @return the warning, empty if there is none
+     */
+    public String getStatusText() {
+        return deadlocked ? DEADLOCK_WARNING : "";
+    }
+
+    /**
+     * Warn the player that the last push left the level unsolvable.
+     * The warning is only shown in the status bar, so the game goes on and undo is one key away.
+     */
+    @Override
+    public void onDeadlock() {
+        deadlocked = true;
+    }
+
+    /**
+     * Take the deadlock warning away once a move is undone.
+     */
+    @Override
+    public void onUndo() {
+        deadlocked = false;
+    }
+
+    /**
+     * Take the deadlock warning away once the level is reset or put back to a checkpoint.
+     */
+    @Override
+    public void onRestore() {
+        deadlocked = false;
+    }
+
+    /**
+     * Take the deadlock warning away when the next level starts.
+     * @param level     the level completed
+     */
+    @Override
+    public void onLevelComplete(Level level) {
+        deadlocked = false;
+    }
+
     /**
      * Load a file from other location.
      * @throws IOException      IO is not available
@@ -132,14 +322,15 @@ public class StageModel {
     public void loadGameFile() throws IOException {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Open Save File");
-        fileChooser.getExtensionFilters().add(
-                new FileChooser.ExtensionFilter("Sokoban save file", "*.skb"));
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Sokoban save file", "*.skb"),
+                new FileChooser.ExtensionFilter("Sokoban level pack", "*" + BinaryPack.EXTENSION));
         saveFile = fileChooser.showOpenDialog(primaryStage);
 
         if (saveFile != null) {
 
-            gameEngine.getMusic().stopMusic();
-            if (StartMeUp.isDebugActive()) {
+            music.stopMusic();
+            if (gameEngine.isDebugActive()) {
                 StartMeUp.logger.info("Loading save file: " + saveFile.getName());
             }
             FileInputStream fileInputStream = new FileInputStream(saveFile);
@@ -183,77 +374,133 @@ public class StageModel {
     }
 
     /**
-     * Save the level scores (time and moves) of the current player to a file.
-     * @throws IOException      IO is not available
+     * Save the score and the replay of the level just completed, then show the level message.
+     * What is shown is read from the game now, the files are written on the score thread
+     * and the message is shown once they are.
      */
-    public void saveLevelScore() throws IOException {
-        String filepath;
+    public void submitLevelScore() {
+        int levelNumber = getCompletedLevelNumber();
+        String player = name;
+        int moves = gameEngine.getCurrentMoves();
         int time = (int) ((gameEngine.getTimeEnd()
                 - gameEngine.getTimeStart()) / TIME_CAST);
-        if (gameEngine.getCurrentLevel() == null) {
-            filepath = "src/main/resources/score_lists/level" + gameEngine.getLevelNum() + ".txt";
-        } else {
-            filepath = "src/main/resources/score_lists/level" +
-                    gameEngine.getCurrentLevel().getIndex() + ".txt";
-        }
-        File file = new File(filepath);
-        if (!file.exists()) {
+        Replay replay = gameEngine.getLastReplay(name);
+        String playerMessage = getPlayerMessage();
+
+        showScoresDialog("Level Over!", store -> {
             try {
-                file.createNewFile();
+                store.add(levelNumber, player, moves, time);
+                if (replay != null) {
+                    replay.appendTo(replayFile);
+                }
             } catch (IOException e) {
                 e.printStackTrace();
             }
+            return getLevelMessage(store, levelNumber, player, playerMessage);
+        });
+    }
+
+    /**
+     * Get the number of the level just completed, the current level is already the next one.
+     * @return the number of the level, from 1
+     */
+    private int getCompletedLevelNumber() {
+        if (gameEngine.getCurrentLevel() == null) {
+            return gameEngine.getLevelNum();
         }
+        return gameEngine.getCurrentLevel().getIndex();
+    }
 
-        FileReader fileReader = new FileReader(file);
-        BufferedReader br = new BufferedReader(fileReader);
-
-        String newline = name + "\t\t" + gameEngine.getCurrentMoves() + "\t\t"
-                + time + System.lineSeparator();
-        StringBuilder newElement = new StringBuilder();
-        String lineContent;
-        boolean inserted = false;
-        while ((lineContent = br.readLine()) != null && !lineContent.equals("")) {
-            if (!inserted) {
-                String[] arr = lineContent.split("\\s+");
-                if (Integer.parseInt(arr[arr.length - 1]) > time) {
-                    newElement.append(newline);
-                    newElement.append(lineContent);
-                    newElement.append(System.lineSeparator());
-                    inserted = true;
-                } else if (Integer.parseInt(arr[arr.length - 1]) < time) {
-                    newElement.append(lineContent);
-                    newElement.append(System.lineSeparator());
-                } else if (Integer.parseInt(arr[arr.length - 1]) == time) {
-                    if (Integer.parseInt(arr[arr.length - 2]) > gameEngine.getCurrentMoves()) {
-                        newElement.append(newline);
-                        newElement.append(lineContent);
-                        newElement.append(System.lineSeparator());
-                        inserted = true;
-                    } else if (Integer.parseInt(arr[arr.length-2]) <= gameEngine.getCurrentMoves()){
-                        newElement.append(lineContent);
-                        newElement.append(System.lineSeparator());
-                    }
+    /**
+     * Write the best scores of a level for a dialog message.
+     * @param dialogMessage     the message to write to
+     * @param store     the scores
+     * @param levelNumber   the number of the level, from 1
+     */
+    private void appendTopTen(StringBuilder dialogMessage, ScoreStore store, int levelNumber) {
+        dialogMessage.append("Top 10 for this level").append(System.lineSeparator())
+                .append(System.lineSeparator()).append("Name" + "\t" + "Moves" + "\t" + "Time")
+                .append(System.lineSeparator()).append(System.lineSeparator());
+        for (Score score : store.top(levelNumber, TOP_TEN)) {
+            dialogMessage.append(score).append(System.lineSeparator());
+        }
+    }
+
+    /**
+     * Copy the scores shipped with the game to a new score directory, it is left as it is if it exists.
+     * @param directory     the score directory
+     * @throws IOException      IO is not available
+     */
+    private static void seedScores(Path directory) throws IOException {
+        if (Files.exists(directory)) {
+            return;
+        }
+        Files.createDirectories(directory);
+        for (int level = 1; ; level++) {
+            String fileName = "level" + level + ".txt";
+            try (InputStream in = StageModel.class.getClassLoader().getResourceAsStream(SCORE_RESOURCES + fileName)) {
+                if (in == null) {
+                    return;
                 }
-            } else {
-                newElement.append(lineContent);
-                newElement.append(System.lineSeparator());
+                Files.copy(in, directory.resolve(fileName));
             }
         }
-        if (file.length() == 0 || !inserted) {
-            newElement.append(newline);
-            newElement.append(System.lineSeparator());
+    }
+
+    /**
+     * Read the scores on the score thread, then show what was read in a dialog on the JavaFX thread.
+     * @param dialogTitle   the title of the dialog
+     * @param message   writes the message of the dialog from the scores
+     */
+    private void showScoresDialog(String dialogTitle, Function<ScoreStore, String> message) {
+        scores.thenApplyAsync(message, scoreThread)
+                .thenAccept(dialogMessage -> Platform.runLater(
+                        () -> dialogWindow.newDialog(dialogTitle, dialogMessage, null)))
+                .exceptionally(e -> {
+                    e.printStackTrace();
+                    return null;
+                });
+    }
+
+    /**
+     * Wait for the scores still being saved, then compact them and stop their background work,
+     * before the game exits.
+     */
+    public void close() {
+        scoreThread.shutdown();
+        try {
+            if (!scoreThread.awaitTermination(CLOSE_TIMEOUT, TimeUnit.SECONDS)) {
+                // Every score added is already in the log, the store is compacted when it is loaded next
+                logWarning("The scores are still being saved, they are not compacted before the game exits.");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
         }
 
-        br.close();
-        fileReader.close();
-        FileWriter fw = new FileWriter(file);
-        BufferedWriter document = new BufferedWriter(fw);
-        document.write(String.valueOf(newElement));
-        document.flush();
-        document.close();
-        fw.close();
+        // The score thread has stopped, so the store is loaded or failed to load
+        if (scores.isCompletedExceptionally()) {
+            logWarning("The scores could not be loaded, nothing to compact.");
+            return;
+        }
+        try {
+            scores.join().close();
+        } catch (IOException e) {
+            logWarning("Cannot compact the scores: " + e.getMessage());
+        }
+    }
 
+    /**
+     * Log a warning through the game logger, or the error stream when the game has no logger.
+     * @param message   the message
+     */
+    private static void logWarning(String message) {
+        if (StartMeUp.logger != null) {
+            StartMeUp.logger.warning(message);
+        } else {
+            System.err.println(message);
+        }
     }
 
     /**
@@ -261,16 +508,7 @@ public class StageModel {
      */
     public void reloadGrid() {
         if (gameEngine.isLevelComplete()) {
-            try {
-                showLevelMessage();
-            } catch (FileNotFoundException e) {
-                e.printStackTrace();
-            }
-            try {
-                saveLevelScore();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            submitLevelScore();
             gameEngine.setLevelComplete(false);
             gameEngine.setTimeStart(System.currentTimeMillis());
             gameEngine.setCurrentMoves(0);
@@ -281,14 +519,15 @@ public class StageModel {
             return;
         }
 
-        Level currentLevel = gameEngine.getCurrentLevel();
-        Level.LevelIterator levelGridIterator = (Level.LevelIterator) currentLevel.iterator();
-        gameGrid.getChildren().clear();
-        while (levelGridIterator.hasNext()) {
-            addObjectToGrid(levelGridIterator.next(), levelGridIterator.getCurrentPosition());
+        long drawStart = System.nanoTime();
+        if (renderer.draw(gameEngine.getCurrentLevel(), gameEngine.getDirection(),
+                wallColour, gameEngine.isDebugActive())) {
+            gameGrid.autosize();
+            primaryStage.sizeToScene();
+        }
+        if (gameEngine.isDebugActive()) {
+            System.out.printf("[RENDER] %s: %d us\n", renderer.getKind(), (System.nanoTime() - drawStart) / 1000);
         }
-        gameGrid.autosize();
-        primaryStage.sizeToScene();
     }
 
     /**
@@ -308,194 +547,79 @@ public class StageModel {
     }
 
     /**
-     * Show a dialog message when finish the current level to show the steps and time
-     * in this level and also display the top 10 of current level.
-     * @throws FileNotFoundException    Cannot get the file
+     * Write the steps and time of the player in the level just completed, for the level message.
+     * @return the message
      */
-    public void showLevelMessage() throws FileNotFoundException {
-        String dialogTitle = "Level Over!";
-        StringBuilder dialogMessage = new StringBuilder();
-        String playerMessage;
+    private String getPlayerMessage() {
         if (gameEngine.getCurrentLevel() == null) {
-            playerMessage = "You completed Final Level in "
+            return "You completed Final Level in "
                     + gameEngine.getCurrentMoves() + " moves!" + System.lineSeparator()
                     + "Total moves: " + gameEngine.getMovesCount() +System.lineSeparator() +
                     "Time: " + ((gameEngine.getTimeEnd() - gameEngine.getTimeStart()) / TIME_CAST)
                     + "s";
-        } else {
-            playerMessage = "You completed Level " + gameEngine.getCurrentLevel().getIndex()
-                    + " in " + gameEngine.getCurrentMoves() + " moves!" + System.lineSeparator()
-                     + "Total moves: " + gameEngine.getMovesCount() + System.lineSeparator() +
-                    "Time: " + ((gameEngine.getTimeEnd() - gameEngine.getTimeStart()) / TIME_CAST)
-                    + "s";
-        }
-        String filepath;
-        if (gameEngine.getCurrentLevel() == null) {
-            filepath = "src/main/resources/score_lists/level" + gameEngine.getLevelNum() + ".txt";
-        } else {
-            filepath = "src/main/resources/score_lists/level" +
-                    gameEngine.getCurrentLevel().getIndex() + ".txt";
-        }
-        File file = new File(filepath);
-        if (!file.exists() || file.length() == 0) {
-            dialogMessage.append(playerMessage).append(System.lineSeparator())
-                    .append(System.lineSeparator())
-                    .append(System.lineSeparator()).append("No Records");
-        } else {
-            dialogMessage.append(playerMessage)
-                    .append(System.lineSeparator()).append(System.lineSeparator())
-                    .append("Top 10 for this level").append(System.lineSeparator())
-                    .append(System.lineSeparator()).append("Name" + "\t" + "Moves" + "\t" + "Time")
-                    .append(System.lineSeparator()).append(System.lineSeparator());
-            int count = 0;
-            Scanner scanner = new Scanner(file);
-            while (scanner.hasNextLine()) {
-                dialogMessage.append(scanner.nextLine()).append(System.lineSeparator());
-                count++;
-                if (count == TOP_TEN) {
-                    break;
-                }
-            }
-            scanner.close();
         }
-        dialogWindow.newDialog(dialogTitle, dialogMessage.toString(), null);
+        return "You completed Level " + gameEngine.getCurrentLevel().getIndex()
+                + " in " + gameEngine.getCurrentMoves() + " moves!" + System.lineSeparator()
+                 + "Total moves: " + gameEngine.getMovesCount() + System.lineSeparator() +
+                "Time: " + ((gameEngine.getTimeEnd() - gameEngine.getTimeStart()) / TIME_CAST)
+                + "s";
     }
 
     /**
-     * Show the top 10 scores of current level in a dialog message.
-     * @param levelNumber   Index of level
-     * @throws FileNotFoundException    Cannot get the file
+     * Write the message shown when finish a level: the steps and time in this level,
+     * the rank of the player and also the top 10 of the level.
+     * @param store     the scores
+     * @param levelNumber   the number of the level, from 1
+     * @param player    the name of the player
+     * @param playerMessage     the steps and time of the player
+     * @return the message
      */
-    public void showScoreList(int levelNumber) throws FileNotFoundException {
-        String dialogTitle = "TOP 10";
+    private String getLevelMessage(ScoreStore store, int levelNumber, String player, String playerMessage) {
         StringBuilder dialogMessage = new StringBuilder();
-        String filepath = "src/main/resources/score_lists/level" +
-                levelNumber + ".txt";
-        File file = new File(filepath);
-        if (!file.exists() || file.length() == 0) {
-            dialogMessage.append("No Records");
+        dialogMessage.append(playerMessage).append(System.lineSeparator());
+        Leaderboard leaderboard = store.leaderboard(levelNumber);
+        int rank = leaderboard.rank(player);
+        if (rank != Leaderboard.NO_RANK) {
+            dialogMessage.append(String.format("Your best: #%d of %d, level with or ahead of %.0f%% of the scores",
+                    rank, leaderboard.size(), leaderboard.percentile(rank)))
+                    .append(System.lineSeparator());
+        }
+        dialogMessage.append(System.lineSeparator());
+        if (leaderboard.size() == 0) {
+            dialogMessage.append(System.lineSeparator()).append("No Records");
         } else {
-            dialogMessage.append("Top 10 for this level").append(System.lineSeparator())
-                    .append(System.lineSeparator()).append("Name" + "\t" + "Moves" + "\t" + "Time")
-                    .append(System.lineSeparator()).append(System.lineSeparator());
-            int count = 0;
-            Scanner scanner = new Scanner(file);
-            while (scanner.hasNextLine()) {
-                dialogMessage.append(scanner.nextLine()).append(System.lineSeparator());
-                count++;
-                if (count == TOP_TEN) {
-                    break;
-                }
-            }
-            scanner.close();
+            appendTopTen(dialogMessage, store, levelNumber);
         }
-        dialogWindow.newDialog(dialogTitle, dialogMessage.toString(), null);
+        return dialogMessage.toString();
     }
 
     /**
-     * Add the object to the specific position in the gameGrid.
-     * @param gameObject    the object to add
-     * @param location  the location for the object to add
+     * Show the top 10 scores of current level in a dialog message, once they are read on the score thread.
+     * @param levelNumber   Index of level
      */
-    public void addObjectToGrid(GameObject gameObject, Point location) {
-        GraphicObject graphicObject = null;
-        try {
-            graphicObject = new GraphicObject(gameObject);
-        } catch (URISyntaxException e) {
-            e.printStackTrace();
-        }
-        gameGrid.add(graphicObject, location.y, location.x);
+    public void showScoreList(int levelNumber) {
+        showScoresDialog("TOP 10", store -> {
+            StringBuilder dialogMessage = new StringBuilder();
+            if (store.size(levelNumber) == 0) {
+                dialogMessage.append("No Records");
+            } else {
+                appendTopTen(dialogMessage, store, levelNumber);
+            }
+            return dialogMessage.toString();
+        });
     }
 
     /**
      * Move the keeper to the previous position.
      */
     public void gotoLastLocation() {
-        int size = gameEngine.getKeeperDirection().size();
-        Point keeperPosition = gameEngine.getCurrentLevel().getKeeperPosition();
-        GameObject keeper = gameEngine.getCurrentLevel().getObjectAt(keeperPosition);
-        if (size != 0) {
-            short lastDirection = gameEngine.getKeeperDirection().removeLast();
-            String lastTarget = gameEngine.getTarget().removeLast();
-            if (lastTarget.equals("FLOOR")) {
-                switch (lastDirection) {
-                    case D_UP:
-                        gameEngine.getCurrentLevel().moveGameObjectBy(keeper, keeperPosition,
-                                new Point(1, 0));
-                        keeperPosition.translate(1, 0);
-                        break;
-                    case D_RIGHT:
-                        gameEngine.getCurrentLevel().moveGameObjectBy(keeper, keeperPosition,
-                                new Point(0, -1));
-                        keeperPosition.translate(0, -1);
-                        break;
-                    case D_DOWN:
-                        gameEngine.getCurrentLevel().moveGameObjectBy(keeper, keeperPosition,
-                                new Point(-1, 0));
-                        keeperPosition.translate(-1, 0);
-                        break;
-                    case D_LEFT:
-                        gameEngine.getCurrentLevel().moveGameObjectBy(keeper, keeperPosition,
-                                new Point(0, 1));
-                        keeperPosition.translate(0, 1);
-                        break;
-                    default:
-                        throw new AssertionError("This should not have happened. " +
-                                "Report this problem to the developer.");
-                }
-            } else if (lastTarget.equals("CRATE")) {
-                switch (lastDirection) {
-                    case D_UP:
-                        Point targetObjectPoint0 =
-                                GameGrid.translatePoint(keeperPosition, new Point(-1, 0));
-                        GameObject keeperTarget0 =
-                                gameEngine.getCurrentLevel().getObjectAt(targetObjectPoint0);
-                        gameEngine.getCurrentLevel().moveGameObjectBy(keeper, keeperPosition,
-                                new Point(1, 0));
-                        gameEngine.getCurrentLevel().moveGameObjectBy(keeperTarget0, targetObjectPoint0,
-                                new Point(1, 0));
-                        keeperPosition.translate(1, 0);
-                        break;
-                    case D_RIGHT:
-                        Point targetObjectPoint1 =
-                                GameGrid.translatePoint(keeperPosition, new Point(0, 1));
-                        GameObject keeperTarget1 =
-                                gameEngine.getCurrentLevel().getObjectAt(targetObjectPoint1);
-                        gameEngine.getCurrentLevel().moveGameObjectBy(keeper, keeperPosition,
-                                new Point(0, -1));
-                        gameEngine.getCurrentLevel().moveGameObjectBy(keeperTarget1, targetObjectPoint1,
-                                new Point(0, -1));
-                        keeperPosition.translate(0, -1);
-                        break;
-                    case D_DOWN:
-                        Point targetObjectPoint2 =
-                                GameGrid.translatePoint(keeperPosition, new Point(1, 0));
-                        GameObject keeperTarget2 =
-                                gameEngine.getCurrentLevel().getObjectAt(targetObjectPoint2);
-                        gameEngine.getCurrentLevel().moveGameObjectBy(keeper, keeperPosition,
-                                new Point(-1, 0));
-                        gameEngine.getCurrentLevel().moveGameObjectBy(keeperTarget2, targetObjectPoint2,
-                                new Point(-1, 0));
-                        keeperPosition.translate(-1, 0);
-                        break;
-                    case D_LEFT:
-                        Point targetObjectPoint3 =
-                                GameGrid.translatePoint(keeperPosition, new Point(0, -1));
-                        GameObject keeperTarget3 =
-                                gameEngine.getCurrentLevel().getObjectAt(targetObjectPoint3);
-                        gameEngine.getCurrentLevel().moveGameObjectBy(keeper, keeperPosition,
-                                new Point(0, 1));
-                        gameEngine.getCurrentLevel().moveGameObjectBy(keeperTarget3, targetObjectPoint3,
-                                new Point(0, 1));
-                        keeperPosition.translate(0, 1);
-                        break;
-                    default:
-                        throw new AssertionError("This should not have happened. " +
-                                "Report this problem to the developer.");
-                }
-            }
-            // penalty for using undo
-            gameEngine.setMovesCount(gameEngine.getMovesCount() + 1);
-        }
+        gameEngine.undo();
+    }
+
+    /**
+     * Move the keeper to the position it had before the last undo.
+     */
+    public void gotoNextLocation() {
+        gameEngine.redo();
     }
 }
@@ -0,0 +1,256 @@
+package com.sokoban.score;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The class Leaderboard ranks the scores of a level, the best first, see {@link Score#ORDER}.
+ * It is an order statistic tree: a treap where each node knows the size of its subtree,
+ * so the rank of a score, the score at a rank and the first scores are all found in logarithmic time.
+ * The best score of each player is kept aside to rank players by name.
+ * The nodes are stored in primitive arrays, indexed by node. All the methods are thread safe.
+ * @author Yuyang LIN
+ */
+public final class Leaderboard {
+
+    /** Returned as the rank of a player with no score */
+    public static final int NO_RANK = 0;
+
+    private static final int NO_NODE = -1;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private Score[] scores = new Score[INITIAL_CAPACITY];
+    private int[] left = new int[INITIAL_CAPACITY];
+    private int[] right = new int[INITIAL_CAPACITY];
+    private int[] size = new int[INITIAL_CAPACITY];
+    private int[] priority = new int[INITIAL_CAPACITY];
+    private int nodeCount = 0;
+    private int root = NO_NODE;
+    private int seed = 0x2545F491;
+    private final Map<String, Score> best = new HashMap<>();
+
+    /**
+     * Add a score, the store adds it to its log first.
+     * @param score     the score, not in the leaderboard yet
+     */
+    synchronized void add(Score score) {
+        if (nodeCount == scores.length) {
+            int capacity = scores.length * 2;
+            scores = Arrays.copyOf(scores, capacity);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            size = Arrays.copyOf(size, capacity);
+            priority = Arrays.copyOf(priority, capacity);
+        }
+
+        int node = nodeCount++;
+        scores[node] = score;
+        left[node] = NO_NODE;
+        right[node] = NO_NODE;
+        size[node] = 1;
+        priority[node] = nextPriority();
+        root = insert(root, node);
+        best.merge(score.getName(), score, (old, added) -> Score.ORDER.compare(added, old) < 0 ? added : old);
+    }
+
+    /**
+     * Get the number of scores.
+     * @return {@code nodeCount}
+     */
+    public synchronized int size() {
+        return nodeCount;
+    }
+
+    /**
+     * Get the number of players with a score.
+     * @return the number of players
+     */
+    public synchronized int players() {
+        return best.size();
+    }
+
+    /**
+     * Get the best scores.
+     * @param count     the most scores to get
+     * @return the scores, the best first
+     */
+    public synchronized List<Score> top(int count) {
+        List<Score> top = new ArrayList<>(Math.min(count, nodeCount));
+        collect(root, top, count);
+        return top;
+    }
+
+    /**
+     * Get the score at a rank.
+     * @param rank  the rank, from 1 for the best score
+     * @return the score
+     */
+    public synchronized Score get(int rank) {
+        if (rank < 1 || rank > nodeCount) {
+            throw new IndexOutOfBoundsException("No rank " + rank + " in a leaderboard of " + nodeCount + " scores.");
+        }
+        int node = root;
+        int before = rank - 1;
+        while (sizeOf(left[node]) != before) {
+            if (before < sizeOf(left[node])) {
+                node = left[node];
+            } else {
+                before -= sizeOf(left[node]) + 1;
+                node = right[node];
+            }
+        }
+        return scores[node];
+    }
+
+    /**
+     * Get the rank a score has or would have.
+     * @param score     the score
+     * @return 1 plus the number of better scores
+     */
+    public synchronized int rankOf(Score score) {
+        int before = 0;
+        int node = root;
+        while (node != NO_NODE) {
+            if (Score.ORDER.compare(scores[node], score) < 0) {
+                before += sizeOf(left[node]) + 1;
+                node = right[node];
+            } else {
+                node = left[node];
+            }
+        }
+        return before + 1;
+    }
+
+    /**
+     * Get the best score of a player.
+     * @param name  the name of the player
+     * @return the score, {@code null} if the player has none
+     */
+    public synchronized Score best(String name) {
+        return best.get(name);
+    }
+
+    /**
+     * Get the rank of the best score of a player.
+     * @param name  the name of the player
+     * @return the rank, from 1, {@code NO_RANK} if the player has no score
+     */
+    public synchronized int rank(String name) {
+        Score score = best.get(name);
+        return score == null ? NO_RANK : rankOf(score);
+    }
+
+    /**
+     * Get the share of scores that a rank is better than or equal to.
+     * @param rank  the rank, from 1 for the best score
+     * @return the percentile, 100 for the best score
+     */
+    public synchronized double percentile(int rank) {
+        if (rank < 1 || rank > nodeCount) {
+            throw new IndexOutOfBoundsException("No rank " + rank + " in a leaderboard of " + nodeCount + " scores.");
+        }
+        return (nodeCount - rank + 1) * 100.0 / nodeCount;
+    }
+
+    /**
+     * Get all the scores, for writing them to a file.
+     * @return the scores, the best first
+     */
+    synchronized Score[] toArray() {
+        List<Score> all = top(nodeCount);
+        return all.toArray(new Score[0]);
+    }
+
+    /**
+     * Insert a node below another, keeping the nodes sorted and each node above the ones of lower priority.
+     * @param at    the top of the subtree, {@code NO_NODE} for an empty one
+     * @param node  the node to insert
+     * @return the new top of the subtree
+     */
+    private int insert(int at, int node) {
+        if (at == NO_NODE) {
+            return node;
+        }
+        size[at]++;
+        if (Score.ORDER.compare(scores[node], scores[at]) < 0) {
+            left[at] = insert(left[at], node);
+            if (priority[left[at]] > priority[at]) {
+                at = rotateRight(at);
+            }
+        } else {
+            right[at] = insert(right[at], node);
+            if (priority[right[at]] > priority[at]) {
+                at = rotateLeft(at);
+            }
+        }
+        return at;
+    }
+
+    /**
+     * Lift the left child of a node above it.
+     * @param node  the node
+     * @return the new top of the subtree
+     */
+    private int rotateRight(int node) {
+        int top = left[node];
+        left[node] = right[top];
+        right[top] = node;
+        size[top] = size[node];
+        size[node] = sizeOf(left[node]) + sizeOf(right[node]) + 1;
+        return top;
+    }
+
+    /**
+     * Lift the right child of a node above it.
+     * @param node  the node
+     * @return the new top of the subtree
+     */
+    private int rotateLeft(int node) {
+        int top = right[node];
+        right[node] = left[top];
+        left[top] = node;
+        size[top] = size[node];
+        size[node] = sizeOf(left[node]) + sizeOf(right[node]) + 1;
+        return top;
+    }
+
+    /**
+     * Add the scores of a subtree in order, until there are enough of them.
+     * @param node  the top of the subtree
+     * @param top   the scores found so far
+     * @param count     the most scores to find
+     */
+    private void collect(int node, List<Score> top, int count) {
+        if (node == NO_NODE || top.size() == count) {
+            return;
+        }
+        collect(left[node], top, count);
+        if (top.size() < count) {
+            top.add(scores[node]);
+            collect(right[node], top, count);
+        }
+    }
+
+    /**
+     * Get the size of a subtree.
+     * @param node  the top of the subtree
+     * @return the number of nodes, 0 for {@code NO_NODE}
+     */
+    private int sizeOf(int node) {
+        return node == NO_NODE ? 0 : size[node];
+    }
+
+    /**
+     * Draw the priority of a new node, from a xorshift generator.
+     * @return the priority
+     */
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+}
@@ -0,0 +1,77 @@
+package com.sokoban.score;
+
+import java.util.Comparator;
+
+/**
+ * The class Score is the result of a player in a level.
+ * Scores are ranked by time, then by moves, and the older score comes first when both are equal.
+ * @author Yuyang LIN
+ */
+public final class Score {
+
+    /** The order of a leaderboard, the best score first */
+    public static final Comparator<Score> ORDER = Comparator.comparingInt(Score::getTime)
+            .thenComparingInt(Score::getMoves)
+            .thenComparingLong(Score::getSequence);
+
+    private final String name;
+    private final int moves;
+    private final int time;
+    private final long sequence;
+
+    /**
+     * Constructor to record a result.
+     * @param name  the name of the player
+     * @param moves     the moves taken
+     * @param time  the time taken, in seconds
+     * @param sequence  the order the score was submitted in, unique in a level
+     */
+    public Score(String name, int moves, int time, long sequence) {
+        // The name is a field of a tab separated line
+        this.name = name.replaceAll("[\\t\\r\\n]", " ");
+        this.moves = moves;
+        this.time = time;
+        this.sequence = sequence;
+    }
+
+    /**
+     * Get the name of the player.
+     * @return {@code name}
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the moves taken.
+     * @return {@code moves}
+     */
+    public int getMoves() {
+        return moves;
+    }
+
+    /**
+     * Get the time taken.
+     * @return {@code time}     the time in seconds
+     */
+    public int getTime() {
+        return time;
+    }
+
+    /**
+     * Get the order the score was submitted in.
+     * @return {@code sequence}
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Write the score as a line of a leaderboard.
+     * @return the name, moves and time, without line break
+     */
+    @Override
+    public String toString() {
+        return name + "\t\t" + moves + "\t\t" + time;
+    }
+}
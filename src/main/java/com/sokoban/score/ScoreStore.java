@@ -0,0 +1,479 @@
+package com.sokoban.score;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * The class ScoreStore keeps the scores of every level sorted in memory and on disk.
+ * A new score is added to the leaderboard of its level and appended to a log, one line per score,
+ * so a submission costs one short write whatever the number of scores.
+ * Once the log is long enough, a background thread compacts it: each level changed since
+ * the last compaction is written to its own sorted file {@code level<N>.txt}, then the log is dropped.
+ * A level file starts with the last sequence it includes, so loading skips the scores of the log
+ * that are already in it, even if the store stopped in the middle of a compaction.
+ * A score is on disk when {@link #add(int, String, int, int)} returns. The threads adding scores at
+ * the same time share one sync of the log, and a level file is synced before it replaces the old one.
+ * Any number of threads can add and read scores at the same time, but a directory belongs to one store.
+ * @author Yuyang LIN
+ */
+public final class ScoreStore implements Closeable {
+
+    /** The number of scores logged before the log is compacted */
+    public static final int COMPACT_THRESHOLD = 1000;
+
+    private static final Pattern LEVEL_FILE = Pattern.compile("level(\\d+)\\.txt");
+    private static final Pattern LOG_FILE = Pattern.compile("scores-(\\d+)\\.log");
+    // Name, moves and time of a level file, the name may have spaces in it
+    private static final Pattern LEVEL_LINE = Pattern.compile("(.*?)\\s+(\\d+)\\s+(\\d+)\\s*");
+    private static final String HEADER = "#";
+    private static final String SEPARATOR = "\t";
+    private static final int LOG_FIELDS = 5;
+
+    private final Path directory;
+    private final int compactThreshold;
+    private final ConcurrentMap<Integer, Leaderboard> levels = new ConcurrentHashMap<>();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "score-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // All the fields below are guarded by writeLock, the leaderboards are only changed under it too
+    private final Object writeLock = new Object();
+    private final Set<Integer> dirty = new HashSet<>();
+    private FileChannel log;
+    private int segment;
+    private int logged;
+    private long lastSequence;
+    private boolean compactionQueued;
+    private IOException failure;
+    private boolean closed;
+
+    // Guarded by syncLock, which is always taken before writeLock
+    private final Object syncLock = new Object();
+    private long syncedSequence;
+
+    /**
+     * Constructor to load the scores kept in a directory, making it if it does not exist.
+     * @param directory     the directory of the level files and the log
+     * @throws IOException  if the directory cannot be read
+     */
+    public ScoreStore(Path directory) throws IOException {
+        this(directory, COMPACT_THRESHOLD);
+    }
+
+    /**
+     * Constructor to load the scores kept in a directory, making it if it does not exist.
+     * @param directory     the directory of the level files and the log
+     * @param compactThreshold  the number of scores logged before the log is compacted
+     * @throws IOException  if the directory cannot be read
+     */
+    public ScoreStore(Path directory, int compactThreshold) throws IOException {
+        if (compactThreshold < 1) {
+            throw new IllegalArgumentException("The log must hold at least one score.");
+        }
+        this.directory = directory;
+        this.compactThreshold = compactThreshold;
+        Files.createDirectories(directory);
+        load();
+    }
+
+    /**
+     * Add a score to a level.
+     * @param level     the number of the level, from 1
+     * @param name  the name of the player
+     * @param moves     the moves taken
+     * @param time  the time taken, in seconds
+     * @return the score added
+     * @throws IOException  if the score cannot be logged, it is not added then,
+     *      or if the log cannot be synced, it may be lost if the system stops
+     */
+    public Score add(int level, String name, int moves, int time) throws IOException {
+        Score score;
+        synchronized (writeLock) {
+            if (closed) {
+                throw new IllegalStateException("The score store is closed.");
+            }
+            score = new Score(name, moves, time, lastSequence + 1);
+            writeLogLine(level, score);
+            lastSequence = score.getSequence();
+            leaderboard(level).add(score);
+            dirty.add(level);
+
+            if (++logged >= compactThreshold && !compactionQueued) {
+                compactionQueued = true;
+                compactor.execute(this::compactQuietly);
+            }
+        }
+        sync(score.getSequence());
+        return score;
+    }
+
+    /**
+     * Get the leaderboard of a level.
+     * @param level     the number of the level, from 1
+     * @return the leaderboard, empty if the level has no score yet
+     */
+    public Leaderboard leaderboard(int level) {
+        return levels.computeIfAbsent(level, key -> new Leaderboard());
+    }
+
+    /**
+     * Get the best scores of a level.
+     * @param level     the number of the level, from 1
+     * @param count     the most scores to get
+     * @return the scores, the best first
+     */
+    public List<Score> top(int level, int count) {
+        return leaderboard(level).top(count);
+    }
+
+    /**
+     * Get the number of scores of a level.
+     * @param level     the number of the level, from 1
+     * @return the number of scores
+     */
+    public int size(int level) {
+        return leaderboard(level).size();
+    }
+
+    /**
+     * Compact the log a last time and stop the background thread.
+     * @throws IOException  if a compaction failed, its scores are still in the log
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+
+        Future<?> last = compactor.submit(this::compactQuietly);
+        compactor.shutdown();
+        try {
+            last.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+
+        synchronized (writeLock) {
+            log.force(false);
+            log.close();
+            if (logged == 0) {
+                Files.deleteIfExists(segmentPath(segment));
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Compact the log on the background thread, a failure is kept for {@link #close()}.
+     */
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException e) {
+            e.printStackTrace();
+            synchronized (writeLock) {
+                failure = e;
+            }
+        }
+    }
+
+    /**
+     * Write the levels changed since the last compaction and drop the log.
+     * New scores go to a new log while the levels are written, only the old logs are dropped.
+     * It only runs on the background thread.
+     * @throws IOException  if a level cannot be written, it is written again by the next compaction
+     */
+    private void compact() throws IOException {
+        Map<Integer, Score[]> changed = new HashMap<>();
+        int current;
+        long upTo;
+        synchronized (syncLock) {
+            synchronized (writeLock) {
+                compactionQueued = false;
+                if (!closed || logged > 0) {
+                    log.force(false);
+                    syncedSequence = lastSequence;
+                    log.close();
+                    log = openSegment(++segment);
+                    logged = 0;
+                }
+                current = segment;
+                upTo = lastSequence;
+                for (int level : dirty) {
+                    changed.put(level, levels.get(level).toArray());
+                }
+                dirty.clear();
+            }
+        }
+
+        try {
+            Iterator<Map.Entry<Integer, Score[]>> levelsLeft = changed.entrySet().iterator();
+            while (levelsLeft.hasNext()) {
+                Map.Entry<Integer, Score[]> level = levelsLeft.next();
+                writeLevel(level.getKey(), upTo, level.getValue());
+                levelsLeft.remove();
+            }
+        } catch (IOException e) {
+            synchronized (writeLock) {
+                dirty.addAll(changed.keySet());
+            }
+            throw e;
+        }
+
+        // The new level files must be on disk before the logs they replace are dropped
+        syncDirectory();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Matcher matcher = LOG_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches() && Integer.parseInt(matcher.group(1)) < current) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Load the level files, then the scores of the logs that are not in them yet.
+     * @throws IOException  if a file cannot be read
+     */
+    private void load() throws IOException {
+        Map<Integer, Long> compacted = new HashMap<>();
+        List<Integer> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                Matcher levelFile = LEVEL_FILE.matcher(fileName);
+                Matcher logFile = LOG_FILE.matcher(fileName);
+                if (levelFile.matches()) {
+                    int level = Integer.parseInt(levelFile.group(1));
+                    compacted.put(level, readLevel(level, file));
+                } else if (logFile.matches()) {
+                    segments.add(Integer.parseInt(logFile.group(1)));
+                }
+            }
+        }
+
+        Collections.sort(segments);
+        for (int number : segments) {
+            readSegment(segmentPath(number), compacted);
+        }
+
+        // A log may end with a line cut short, new scores never go after it
+        segment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1) + 1;
+        log = openSegment(segment);
+        syncedSequence = lastSequence;
+        if (!segments.isEmpty()) {
+            compactionQueued = true;
+            compactor.execute(this::compactQuietly);
+        }
+    }
+
+    /**
+     * Read a level file, sorted with the best score first.
+     * Files written before the log have no sequence, their scores come before all the logged ones.
+     * @param level     the number of the level
+     * @param file  the level file
+     * @return the last sequence in the file
+     * @throws IOException  if the file cannot be read
+     */
+    private long readLevel(int level, Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        long upTo = 0;
+        int first = 0;
+        if (!lines.isEmpty() && lines.get(0).startsWith(HEADER)) {
+            upTo = Long.parseLong(lines.get(0).substring(HEADER.length()).trim());
+            first = 1;
+        }
+
+        Leaderboard scores = leaderboard(level);
+        long sequence = upTo - (lines.size() - first);
+        for (int i = first; i < lines.size(); i++) {
+            sequence++;
+            Matcher matcher = LEVEL_LINE.matcher(lines.get(i));
+            if (matcher.matches()) {
+                scores.add(new Score(matcher.group(1), Integer.parseInt(matcher.group(2)),
+                        Integer.parseInt(matcher.group(3)), sequence));
+            }
+        }
+        lastSequence = Math.max(lastSequence, upTo);
+        return upTo;
+    }
+
+    /**
+     * Read the scores of a log that are not in their level file yet.
+     * A line with a wrong checksum was cut short when the store stopped and is skipped.
+     * @param file  the log
+     * @param compacted     the last sequence of each level file
+     * @throws IOException  if the log cannot be read
+     */
+    private void readSegment(Path file, Map<Integer, Long> compacted) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int end = line.lastIndexOf(SEPARATOR);
+                if (end < 0 || !line.substring(end + 1).equals(checksum(line.substring(0, end)))) {
+                    continue;
+                }
+
+                String[] fields = line.substring(0, end).split(SEPARATOR, LOG_FIELDS);
+                long sequence = Long.parseLong(fields[0]);
+                int level = Integer.parseInt(fields[1]);
+                lastSequence = Math.max(lastSequence, sequence);
+                if (sequence > compacted.getOrDefault(level, 0L)) {
+                    leaderboard(level).add(new Score(fields[4], Integer.parseInt(fields[2]),
+                            Integer.parseInt(fields[3]), sequence));
+                    dirty.add(level);
+                }
+            }
+        }
+    }
+
+    /**
+     * Append a score to the log.
+     * @param level     the number of the level
+     * @param score     the score
+     * @throws IOException  if the log cannot be written
+     */
+    private void writeLogLine(int level, Score score) throws IOException {
+        String line = score.getSequence() + SEPARATOR + level + SEPARATOR + score.getMoves()
+                + SEPARATOR + score.getTime() + SEPARATOR + score.getName();
+        write(log, line + SEPARATOR + checksum(line) + System.lineSeparator());
+    }
+
+    /**
+     * Sync the log to disk up to a sequence.
+     * The threads waiting here while a sync runs are all covered by the next one,
+     * so the log is synced once per batch of scores rather than once per score.
+     * @param sequence  the sequence of the score that must be on disk
+     * @throws IOException  if the log cannot be synced
+     */
+    private void sync(long sequence) throws IOException {
+        synchronized (syncLock) {
+            if (syncedSequence >= sequence) {
+                return;
+            }
+            FileChannel channel;
+            long upTo;
+            synchronized (writeLock) {
+                channel = log;
+                upTo = lastSequence;
+            }
+            channel.force(false);
+            syncedSequence = upTo;
+        }
+    }
+
+    /**
+     * Write the sorted scores of a level to a new file and sync it, then put it in place of the old one.
+     * @param level     the number of the level
+     * @param upTo  the last sequence logged when the scores were taken
+     * @param scores    the scores, the best first
+     * @throws IOException  if the file cannot be written
+     */
+    private void writeLevel(int level, long upTo, Score[] scores) throws IOException {
+        StringBuilder text = new StringBuilder(HEADER).append(upTo).append(System.lineSeparator());
+        for (Score score : scores) {
+            text.append(score).append(System.lineSeparator());
+        }
+
+        Path file = directory.resolve("level" + level + ".txt");
+        Path temporary = directory.resolve("level" + level + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(channel, text.toString());
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Sync the directory, so the files moved into it are on disk.
+     * Some systems cannot open a directory, the move is left to them then.
+     */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported here
+        }
+    }
+
+    /**
+     * Write the whole of a text to a file.
+     * @param channel   the file
+     * @param text  the text
+     * @throws IOException  if the file cannot be written
+     */
+    private static void write(FileChannel channel, String text) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Open a log for appending.
+     * @param number    the number of the log
+     * @return the channel of the log
+     * @throws IOException  if the log cannot be opened
+     */
+    private FileChannel openSegment(int number) throws IOException {
+        return FileChannel.open(segmentPath(number), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Get the path of a log.
+     * @param number    the number of the log
+     * @return the path
+     */
+    private Path segmentPath(int number) {
+        return directory.resolve("scores-" + number + ".log");
+    }
+
+    /**
+     * Compute the checksum of a log line.
+     * @param line  the line, without its checksum
+     * @return the checksum in hexadecimal
+     */
+    private static String checksum(String line) {
+        CRC32 crc = new CRC32();
+        crc.update(line.getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+}
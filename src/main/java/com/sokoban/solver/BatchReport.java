@@ -0,0 +1,95 @@
+package com.sokoban.solver;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The class BatchReport sums up the results of solving a map set.
+ * @author Yuyang LIN
+ */
+public final class BatchReport {
+
+    private final List<SolverResult> results;
+    private final long timeMillis;
+
+    /**
+     * Constructor to initialize the report.
+     * @param results   the results in the order of the levels
+     * @param timeMillis    wall time of the whole batch in milliseconds
+     */
+    BatchReport(List<SolverResult> results, long timeMillis) {
+        this.results = Collections.unmodifiableList(results);
+        this.timeMillis = timeMillis;
+    }
+
+    /**
+     * Get the results in the order of the levels.
+     * @return {@code results}
+     */
+    public List<SolverResult> getResults() {
+        return results;
+    }
+
+    /**
+     * Get the number of solved levels.
+     * @return number of levels with a solution
+     */
+    public int getSolvedCount() {
+        int count = 0;
+        for (SolverResult result : results) {
+            if (result.isSolved()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the number of levels that were not solved, for any reason.
+     * @return number of levels without a solution
+     */
+    public int getUnsolvedCount() {
+        return results.size() - getSolvedCount();
+    }
+
+    /**
+     * Get the total number of states expanded.
+     * @return the sum over all the levels
+     */
+    public long getNodesExpanded() {
+        long nodes = 0;
+        for (SolverResult result : results) {
+            nodes += result.getNodesExpanded();
+        }
+        return nodes;
+    }
+
+    /**
+     * Get the wall time of the whole batch.
+     * @return {@code timeMillis}   time in milliseconds
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * Override of {@link String#toString()}.
+     * @return one line per level followed by the totals
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < results.size(); i++) {
+            SolverResult result = results.get(i);
+            sb.append("Level ").append(i + 1);
+            if (result.getLevelName() != null) {
+                sb.append(" (").append(result.getLevelName()).append(')');
+            }
+            sb.append(": ").append(result).append(System.lineSeparator());
+        }
+        sb.append("Solved: ").append(getSolvedCount()).append('/').append(results.size())
+                .append(" nodes: ").append(getNodesExpanded())
+                .append(" time: ").append(timeMillis).append("ms");
+        return sb.toString();
+    }
+}
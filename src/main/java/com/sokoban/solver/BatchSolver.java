@@ -0,0 +1,248 @@
+package com.sokoban.solver;
+
+import com.sokoban.game.BinaryPack;
+import com.sokoban.game.Level;
+import com.sokoban.game.LevelSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * The class BatchSolver solves all the levels of a map set at once,
+ * one level per worker of a fork-join pool, each with its own time limit.
+ * It is run from the command line to check a map set before it ships, see {@link #main(String[])}.
+ * @author Yuyang LIN
+ */
+public final class BatchSolver {
+
+    /** The default time limit of each level, in milliseconds */
+    public static final long DEFAULT_TIME_LIMIT = 60_000;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long timeLimit = DEFAULT_TIME_LIMIT;
+    private long memoryLimit = 0;
+    private Solver.Algorithm algorithm = Solver.Algorithm.A_STAR;
+
+    /**
+     * Get the number of worker threads.
+     * @return {@code threads}
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Set the number of worker threads, one per processor by default.
+     * @param threads   number of worker threads
+     */
+    public void setThreads(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Number of threads must be positive.");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Get the time limit of each level.
+     * @return {@code timeLimit}    the limit in milliseconds
+     */
+    public long getTimeLimit() {
+        return timeLimit;
+    }
+
+    /**
+     * Set the time limit of each level.
+     * @param timeLimit     the limit in milliseconds, {@code Solver.NO_TIME_LIMIT} if there is none
+     */
+    public void setTimeLimit(long timeLimit) {
+        if (timeLimit < 0) {
+            throw new IllegalArgumentException("Time limit cannot be negative.");
+        }
+        this.timeLimit = timeLimit;
+    }
+
+    /**
+     * Get the memory budget of each level.
+     * @return {@code memoryLimit}  the budget in bytes, {@code 0} to share half of the heap among the workers
+     */
+    public long getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    /**
+     * Set the memory budget of each level.
+     * @param memoryLimit   the budget in bytes, {@code 0} to share half of the heap among the workers
+     */
+    public void setMemoryLimit(long memoryLimit) {
+        if (memoryLimit < 0) {
+            throw new IllegalArgumentException("Memory limit cannot be negative.");
+        }
+        this.memoryLimit = memoryLimit;
+    }
+
+    /**
+     * Set the search algorithm of every level.
+     * @param algorithm     the search algorithm
+     */
+    public void setAlgorithm(Solver.Algorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Solve all the levels, taking their current state.
+     * Each level is only asked for by the worker solving it, so a list that builds its levels
+     * on demand is never built all at once. The levels should not change while the batch runs.
+     * A level that cannot be built or makes the solver fail is reported as {@code FAILED},
+     * the other levels are still solved.
+     * @param levels    the levels to solve
+     * @return {@code BatchReport}  the results in the order of the levels
+     * @throws InterruptedException     if the calling thread is interrupted while waiting
+     */
+    public BatchReport solveAll(List<Level> levels) throws InterruptedException {
+        long timeStart = System.currentTimeMillis();
+        long levelMemory = memoryLimit > 0 ? memoryLimit
+                : Math.max(1, Runtime.getRuntime().maxMemory() / (2L * threads));
+
+        List<Callable<SolverResult>> tasks = new ArrayList<>(levels.size());
+        for (int i = 0; i < levels.size(); i++) {
+            final int index = i;
+            tasks.add(() -> {
+                Solver solver = new Solver(levels.get(index));
+                solver.setAlgorithm(algorithm);
+                solver.setMemoryLimit(levelMemory);
+                solver.setTimeLimit(timeLimit);
+                return solver.solve();
+            });
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<Future<SolverResult>> futures = pool.invokeAll(tasks);
+            List<SolverResult> results = new ArrayList<>(futures.size());
+            for (Future<SolverResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    // One level failing should not hide the results of the others
+                    e.getCause().printStackTrace();
+                    results.add(new SolverResult(null, SolverResult.Status.FAILED, null, -1, 0, 0));
+                }
+            }
+            return new BatchReport(results, System.currentTimeMillis() - timeStart);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Solve the levels of a game file or level pack from the command line and print the report,
+     * to check a map set before it ships.
+     * Options: {@code --threads=N}, {@code --time=<ms per level>}, {@code --memory=<MB per level>},
+     * {@code --algorithm=ida_star} and {@code --level=N} to solve only the level N, from 1.
+     * @param args  the game file or pack file, then the options
+     * @throws IOException  if the file cannot be read
+     * @throws InterruptedException     if the batch is interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.out.println("Usage: BatchSolver <game file.skb | pack file" + BinaryPack.EXTENSION + ">"
+                    + " [--threads=N] [--time=ms] [--memory=MB] [--algorithm=a_star|ida_star] [--level=N]");
+            return;
+        }
+
+        BatchSolver batchSolver = new BatchSolver();
+        int only = 0;
+        try {
+            for (int i = 1; i < args.length; i++) {
+                String[] option = args[i].split("=", 2);
+                String value = option.length == 2 ? option[1] : "";
+                switch (option[0]) {
+                    case "--threads":
+                        batchSolver.setThreads(Integer.parseInt(value));
+                        break;
+                    case "--time":
+                        batchSolver.setTimeLimit(Long.parseLong(value));
+                        break;
+                    case "--memory":
+                        batchSolver.setMemoryLimit(Long.parseLong(value) * 1024 * 1024);
+                        break;
+                    case "--algorithm":
+                        batchSolver.setAlgorithm(Solver.Algorithm.valueOf(value.toUpperCase()));
+                        break;
+                    case "--level":
+                        only = Integer.parseInt(value);
+                        break;
+                    default:
+                        System.out.println("Unknown option " + args[i]);
+                        return;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("Bad option: " + e.getMessage());
+            return;
+        }
+
+        List<Level> levels = readLevels(Paths.get(args[0]));
+        if (only != 0) {
+            if (only < 1 || only > levels.size()) {
+                System.out.println("There is no level " + only + " in " + levels.size() + " levels.");
+                return;
+            }
+            Level level = levels.get(only - 1);
+            BatchReport report = batchSolver.solveAll(Collections.singletonList(level));
+            System.out.println("Level " + only + " (" + level.getName() + "): " + report.getResults().get(0));
+            return;
+        }
+        System.out.println(batchSolver.solveAll(levels));
+    }
+
+    /**
+     * Read the levels of a game file or level pack, built one at a time and not kept,
+     * so a large file is not held in memory as levels.
+     * @param path  the game file or pack file
+     * @return the levels
+     * @throws IOException  if the file cannot be read
+     */
+    private static List<Level> readLevels(Path path) throws IOException {
+        if (path.toString().endsWith(BinaryPack.EXTENSION)) {
+            BinaryPack pack = BinaryPack.open(path);
+            return new AbstractList<Level>() {
+                @Override
+                public Level get(int index) {
+                    return pack.read(index);
+                }
+
+                @Override
+                public int size() {
+                    return pack.size();
+                }
+            };
+        }
+
+        LevelSource source;
+        try (InputStream input = Files.newInputStream(path)) {
+            source = new LevelSource(input);
+        }
+        return new AbstractList<Level>() {
+            @Override
+            public Level get(int index) {
+                return source.read(index);
+            }
+
+            @Override
+            public int size() {
+                return source.size();
+            }
+        };
+    }
+}
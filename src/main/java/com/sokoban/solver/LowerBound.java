@@ -0,0 +1,138 @@
+package com.sokoban.solver;
+
+import java.util.Arrays;
+
+/**
+ * The class LowerBound estimates the pushes left in a state with a minimum-cost
+ * matching of the diamonds to the crates, solved by the Hungarian method.
+ * Each diamond is given its own crate, so the estimate never exceeds the real number of pushes.
+ * @author Yuyang LIN
+ */
+final class LowerBound {
+
+    static final int INFINITE = Integer.MAX_VALUE;
+    // Cost of an impossible pair, large enough to never be part of a real matching
+    private static final int NO_PATH = 1 << 20;
+
+    private final PushDistances distances;
+    private final int goals;
+    private final int[][] cost;
+    private final int[] u;
+    private final int[] v;
+    private final int[] match;
+    private final int[] way;
+    private final int[] minimum;
+    private final boolean[] used;
+
+    /**
+     * Constructor to prepare the working arrays of the matching.
+     * @param distances     push distances to the diamonds
+     * @param goals     number of diamonds
+     * @param crates    number of crates
+     */
+    LowerBound(PushDistances distances, int goals, int crates) {
+        this.distances = distances;
+        this.goals = goals;
+        cost = new int[goals][crates];
+        u = new int[goals + 1];
+        v = new int[crates + 1];
+        match = new int[crates + 1];
+        way = new int[crates + 1];
+        minimum = new int[crates + 1];
+        used = new boolean[crates + 1];
+    }
+
+    /**
+     * Estimate the pushes needed to put a crate on every diamond.
+     * @param crates    indexes of the crate cells
+     * @return the estimate, {@code INFINITE} if some diamond cannot get a crate
+     */
+    int estimate(int[] crates) {
+        int count = crates.length;
+        if (count < goals) {
+            return INFINITE;
+        }
+
+        for (int g = 0; g < goals; g++) {
+            boolean reachable = false;
+            for (int c = 0; c < count; c++) {
+                int distance = distances.get(g, crates[c]);
+                if (distance == PushDistances.UNREACHABLE) {
+                    cost[g][c] = NO_PATH;
+                } else {
+                    cost[g][c] = distance;
+                    reachable = true;
+                }
+            }
+            if (!reachable) {
+                return INFINITE;
+            }
+        }
+
+        int total = solveAssignment(count);
+        return total >= NO_PATH ? INFINITE : total;
+    }
+
+    /**
+     * Solve the assignment of the diamonds (rows) to the crates (columns).
+     * @param count     number of crates
+     * @return the least total cost
+     */
+    private int solveAssignment(int count) {
+        Arrays.fill(u, 0);
+        Arrays.fill(v, 0);
+        Arrays.fill(match, 0);
+
+        for (int row = 1; row <= goals; row++) {
+            match[0] = row;
+            int column = 0;
+            Arrays.fill(minimum, Integer.MAX_VALUE);
+            Arrays.fill(used, false);
+
+            do {
+                used[column] = true;
+                int matchedRow = match[column];
+                int delta = Integer.MAX_VALUE;
+                int nextColumn = 0;
+
+                for (int c = 1; c <= count; c++) {
+                    if (!used[c]) {
+                        int reduced = cost[matchedRow - 1][c - 1] - u[matchedRow] - v[c];
+                        if (reduced < minimum[c]) {
+                            minimum[c] = reduced;
+                            way[c] = column;
+                        }
+                        if (minimum[c] < delta) {
+                            delta = minimum[c];
+                            nextColumn = c;
+                        }
+                    }
+                }
+
+                for (int c = 0; c <= count; c++) {
+                    if (used[c]) {
+                        u[match[c]] += delta;
+                        v[c] -= delta;
+                    } else {
+                        minimum[c] -= delta;
+                    }
+                }
+                column = nextColumn;
+            } while (match[column] != 0);
+
+            do {
+                int previous = way[column];
+                match[column] = match[previous];
+                column = previous;
+            } while (column != 0);
+        }
+
+        int total = 0;
+        for (int c = 1; c <= count; c++) {
+            if (match[c] != 0) {
+                total += cost[match[c] - 1][c - 1];
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,61 @@
+package com.sokoban.solver;
+
+import java.util.Arrays;
+
+/**
+ * The class PushDistances keeps, for every diamond, the least number of pushes
+ * a lone crate needs to reach it from each cell. The distances are found by
+ * pulling a crate backwards from the diamond, ignoring the other crates.
+ * @author Yuyang LIN
+ */
+final class PushDistances {
+
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    // distances[goal][cell] is the number of pushes from the cell to the goal
+    private final int[][] distances;
+
+    /**
+     * Constructor to pull back from every diamond of the board.
+     * @param board     the board of the search
+     */
+    PushDistances(SearchBoard board) {
+        distances = new int[board.goals.length][];
+        int[] queue = new int[board.size];
+
+        for (int g = 0; g < board.goals.length; g++) {
+            int[] distance = new int[board.size];
+            Arrays.fill(distance, UNREACHABLE);
+            int head = 0;
+            int tail = 0;
+            int goal = board.goals[g];
+            distance[goal] = 0;
+            queue[tail++] = goal;
+
+            while (head < tail) {
+                int cell = queue[head++];
+                for (int d = 0; d < SearchBoard.DIRECTIONS; d++) {
+                    // The crate moves to the next cell while the keeper steps one further
+                    int pulled = board.next(cell, d);
+                    if (pulled < 0 || board.next(pulled, d) < 0 || distance[pulled] != UNREACHABLE) {
+                        continue;
+                    }
+                    distance[pulled] = distance[cell] + 1;
+                    queue[tail++] = pulled;
+                }
+            }
+
+            distances[g] = distance;
+        }
+    }
+
+    /**
+     * Get the least number of pushes from a cell to a diamond.
+     * @param goal  position of the diamond in {@code SearchBoard.goals}
+     * @param cell  index of the cell
+     * @return the number of pushes, {@code UNREACHABLE} if there is no way
+     */
+    int get(int goal, int cell) {
+        return distances[goal][cell];
+    }
+}
@@ -0,0 +1,278 @@
+package com.sokoban.solver;
+
+import com.sokoban.game.DeadlockDetector;
+import com.sokoban.game.Level;
+import com.sokoban.game.PackedBoard;
+import java.awt.*;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The class SearchBoard keeps the static part of a level for the search:
+ * walls, diamonds, dead squares and the neighbours of every cell, plus the starting crates and keeper.
+ * The crates of the state being looked at are kept on a copy of the level board,
+ * which the deadlock detector of the game reads as well.
+ * Directions follow the keeper directions of the game: up, right, down and left.
+ * @author Yuyang LIN
+ */
+final class SearchBoard {
+
+    static final int DIRECTIONS = 4;
+    private static final String MOVE_CHARS = "urdl";
+    private static final int[] DELTA_ROW = {-1, 0, 1, 0};
+    private static final int[] DELTA_COL = {0, 1, 0, -1};
+
+    final int size;
+    final int[] goals;
+    final boolean[] goalCells;
+    final boolean[] deadCells;
+    final int[] initialCrates;
+    final int initialKeeper;
+    // neighbours[cell * DIRECTIONS + direction] is the next non-wall cell, or -1
+    private final int[] neighbours;
+    private final int[] queue;
+    private final int[] visited;
+    private final PackedBoard cells;
+    private final int[] placed;
+    private final DeadlockDetector detector;
+    private int visitStamp = 0;
+
+    /**
+     * Constructor to read the static part of the level.
+     * @param level     the level to solve
+     */
+    SearchBoard(Level level) {
+        PackedBoard board = level.getBoard();
+        size = board.size();
+        goalCells = new boolean[size];
+        deadCells = new boolean[size];
+        neighbours = new int[size * DIRECTIONS];
+        queue = new int[size];
+        visited = new int[size];
+        cells = new PackedBoard(board);
+        BitSet deadSquares = new BitSet(size);
+
+        int[] goalList = new int[size];
+        int[] crateList = new int[size];
+        int goalCount = 0;
+        int crateCount = 0;
+        int keeper = -1;
+
+        for (int i = 0; i < size; i++) {
+            if (board.has(i, PackedBoard.DIAMOND)) {
+                goalCells[i] = true;
+                goalList[goalCount++] = i;
+            }
+            if (board.has(i, PackedBoard.CRATE)) {
+                crateList[crateCount++] = i;
+            }
+            if (board.has(i, PackedBoard.KEEPER)) {
+                keeper = i;
+            }
+            deadCells[i] = level.isDeadSquare(i);
+            deadSquares.set(i, deadCells[i]);
+            cells.clear(i, (byte) (PackedBoard.CRATE | PackedBoard.KEEPER));
+
+            int row = board.rowOf(i);
+            int col = board.colOf(i);
+            for (int d = 0; d < DIRECTIONS; d++) {
+                int nextRow = row + DELTA_ROW[d];
+                int nextCol = col + DELTA_COL[d];
+                boolean open = !board.has(i, PackedBoard.WALL) && !board.isOutOfBounds(nextRow, nextCol)
+                        && !board.has(board.indexOf(nextRow, nextCol), PackedBoard.WALL);
+                neighbours[i * DIRECTIONS + d] = open ? board.indexOf(nextRow, nextCol) : -1;
+            }
+        }
+
+        if (keeper < 0) {
+            Point position = level.getKeeperPosition();
+            keeper = board.indexOf(position.x, position.y);
+        }
+
+        goals = Arrays.copyOf(goalList, goalCount);
+        initialCrates = Arrays.copyOf(crateList, crateCount);
+        initialKeeper = keeper;
+        placed = initialCrates.clone();
+        detector = new DeadlockDetector(cells, deadSquares);
+    }
+
+    /**
+     * Get the next non-wall cell in a direction.
+     * @param cell  index of the cell
+     * @param direction     direction to go
+     * @return index of the next cell, {@code -1} if it is a wall or out of the board
+     */
+    int next(int cell, int direction) {
+        return neighbours[cell * DIRECTIONS + direction];
+    }
+
+    /**
+     * Get the opposite direction.
+     * @param direction     a direction
+     * @return the opposite direction
+     */
+    static int opposite(int direction) {
+        return (direction + 2) & (DIRECTIONS - 1);
+    }
+
+    /**
+     * Get the LURD character of a move.
+     * @param direction     direction of the move
+     * @param push      if the move pushes a crate
+     * @return lower case for a walk, upper case for a push
+     */
+    static char moveChar(int direction, boolean push) {
+        char c = MOVE_CHARS.charAt(direction);
+        return push ? Character.toUpperCase(c) : c;
+    }
+
+    /**
+     * Mark the cells holding crates, replacing the previous marks.
+     * @param crates    indexes of the crate cells
+     */
+    void placeCrates(int[] crates) {
+        for (int crate : placed) {
+            cells.clear(crate, PackedBoard.CRATE);
+        }
+        System.arraycopy(crates, 0, placed, 0, placed.length);
+        for (int crate : placed) {
+            cells.set(crate, PackedBoard.CRATE);
+        }
+    }
+
+    /**
+     * Check if there is a crate on the cell, according to {@link #placeCrates(int[])}.
+     * @param cell  index of the cell
+     * @return {@code true} if there is a crate, {@code false} otherwise
+     */
+    boolean hasCrate(int cell) {
+        return cells.has(cell, PackedBoard.CRATE);
+    }
+
+    /**
+     * Move a crate mark from one cell to another.
+     * @param from  the cell the crate leaves
+     * @param to    the cell the crate enters
+     */
+    void moveCrate(int from, int to) {
+        cells.clear(from, PackedBoard.CRATE);
+        cells.set(to, PackedBoard.CRATE);
+        for (int i = 0; i < placed.length; i++) {
+            if (placed[i] == from) {
+                placed[i] = to;
+                break;
+            }
+        }
+    }
+
+    /**
+     * Check if pushing a crate leaves the placed crates in a freeze or corral deadlock.
+     * The crates are the same again once the check is done.
+     * @param from  the cell the crate leaves, where the keeper stands after the push
+     * @param to    the cell the crate enters
+     * @return {@code true} if the push can never lead to a solution, {@code false} if it is not known
+     */
+    boolean isDeadlockedAfterPush(int from, int to) {
+        moveCrate(from, to);
+        boolean deadlocked = detector.isDeadlockedAfterPush(to, from);
+        moveCrate(to, from);
+        return deadlocked;
+    }
+
+    /**
+     * Flood the cells the keeper can walk to without pushing a crate.
+     * @param keeper    the cell of the keeper
+     * @return the smallest reachable index, which stands for the whole region
+     */
+    int reach(int keeper) {
+        visitStamp++;
+        int head = 0;
+        int tail = 0;
+        int smallest = keeper;
+        queue[tail++] = keeper;
+        visited[keeper] = visitStamp;
+
+        while (head < tail) {
+            int cell = queue[head++];
+            if (cell < smallest) {
+                smallest = cell;
+            }
+            for (int d = 0; d < DIRECTIONS; d++) {
+                int next = next(cell, d);
+                if (next >= 0 && visited[next] != visitStamp && !hasCrate(next)) {
+                    visited[next] = visitStamp;
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        return smallest;
+    }
+
+    /**
+     * Check if the cell was reached by the last {@link #reach(int)}.
+     * @param cell  index of the cell
+     * @return {@code true} if the keeper can walk there, {@code false} otherwise
+     */
+    boolean isReached(int cell) {
+        return visited[cell] == visitStamp;
+    }
+
+    /**
+     * Find the walk of the keeper to a cell, without pushing a crate.
+     * @param from  the cell of the keeper
+     * @param to    the cell to go to
+     * @param moves     the builder to append the LURD walk to
+     * @return {@code true} if the cell can be reached, {@code false} otherwise
+     */
+    boolean appendWalk(int from, int to, StringBuilder moves) {
+        int[] cameFrom = new int[size];
+        Arrays.fill(cameFrom, -1);
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = from;
+        cameFrom[from] = from;
+
+        while (head < tail && cameFrom[to] < 0) {
+            int cell = queue[head++];
+            for (int d = 0; d < DIRECTIONS; d++) {
+                int next = next(cell, d);
+                if (next >= 0 && cameFrom[next] < 0 && !hasCrate(next)) {
+                    cameFrom[next] = cell;
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        if (cameFrom[to] < 0) {
+            return false;
+        }
+
+        int length = 0;
+        for (int cell = to; cell != from; cell = cameFrom[cell]) {
+            length++;
+        }
+
+        char[] walk = new char[length];
+        for (int cell = to, i = length - 1; cell != from; cell = cameFrom[cell], i--) {
+            walk[i] = moveChar(directionBetween(cameFrom[cell], cell), false);
+        }
+        moves.append(walk);
+        return true;
+    }
+
+    /**
+     * Get the direction from a cell to one of its neighbours.
+     * @param from  the first cell
+     * @param to    the neighbouring cell
+     * @return the direction
+     */
+    int directionBetween(int from, int to) {
+        for (int d = 0; d < DIRECTIONS; d++) {
+            if (next(from, d) == to) {
+                return d;
+            }
+        }
+        throw new IllegalArgumentException("The cells " + from + " and " + to + " are not neighbours.");
+    }
+}
@@ -0,0 +1,446 @@
+package com.sokoban.solver;
+
+import com.sokoban.game.Level;
+import com.sokoban.game.Zobrist;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * The class Solver searches a level for the solution with the fewest pushes.
+ * States are the crate cells plus the region the keeper can walk in,
+ * searched with A* or IDA* under a minimum-matching lower bound,
+ * and states already seen are dropped through a Zobrist-keyed transposition table.
+ * @author Yuyang LIN
+ */
+public final class Solver {
+
+    /**
+     * The enum Algorithm shows the search algorithms of the solver.
+     */
+    public enum Algorithm {
+
+        /** Best-first search keeping every open state in memory */
+        A_STAR,
+
+        /** Iterative deepening on the estimated pushes, using little memory */
+        IDA_STAR
+    }
+
+    /** The default memory budget of a search, in bytes */
+    public static final long DEFAULT_MEMORY_LIMIT = 256L * 1024 * 1024;
+
+    /** The time limit of a search that never times out */
+    public static final long NO_TIME_LIMIT = 0;
+
+    // Rough size of a search node, object headers and fields included
+    private static final int NODE_BYTES = 64;
+    // The clock is read once every this many expanded states
+    private static final int CLOCK_MASK = 1023;
+    private static final Comparator<Node> NODE_ORDER =
+            Comparator.<Node>comparingInt(node -> node.f).thenComparingInt(node -> -node.g);
+
+    private final String levelName;
+    private final SearchBoard board;
+    private final boolean pruneDeadSquares;
+    private PushDistances distances;
+    private LowerBound bound;
+    private Algorithm algorithm = Algorithm.A_STAR;
+    private long memoryLimit = DEFAULT_MEMORY_LIMIT;
+    private long timeLimit = NO_TIME_LIMIT;
+    private long deadline;
+    private boolean timedOut;
+    private long nodesExpanded;
+    private TranspositionTable table;
+    private int threshold;
+    private int nextThreshold;
+    private int[] pathFrom;
+    private int[] pathDirection;
+
+    /**
+     * Constructor to take the current state of a level for the search.
+     * The level is only read here, so it may change while the search runs.
+     * @param level     the level to solve
+     */
+    public Solver(Level level) {
+        levelName = level.getName();
+        board = new SearchBoard(level);
+        // With spare crates, a crate may stay on a dead square for good
+        pruneDeadSquares = board.initialCrates.length == board.goals.length;
+    }
+
+    /**
+     * Get the search algorithm.
+     * @return {@code algorithm}
+     */
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Set the search algorithm.
+     * @param algorithm     the search algorithm
+     */
+    public void setAlgorithm(Algorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Get the memory budget of the search.
+     * @return {@code memoryLimit}  the budget in bytes
+     */
+    public long getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    /**
+     * Set the memory budget of the search, shared by the open states and the transposition table.
+     * @param memoryLimit   the budget in bytes
+     */
+    public void setMemoryLimit(long memoryLimit) {
+        if (memoryLimit <= 0) {
+            throw new IllegalArgumentException("Memory limit must be positive.");
+        }
+        this.memoryLimit = memoryLimit;
+    }
+
+    /**
+     * Get the time limit of the search.
+     * @return {@code timeLimit}    the limit in milliseconds, {@code NO_TIME_LIMIT} if there is none
+     */
+    public long getTimeLimit() {
+        return timeLimit;
+    }
+
+    /**
+     * Set the time limit of the search.
+     * @param timeLimit     the limit in milliseconds, {@code NO_TIME_LIMIT} if there is none
+     */
+    public void setTimeLimit(long timeLimit) {
+        if (timeLimit < 0) {
+            throw new IllegalArgumentException("Time limit cannot be negative.");
+        }
+        this.timeLimit = timeLimit;
+    }
+
+    /**
+     * Search the level.
+     * The search also stops with {@code TIMED_OUT} when its thread is interrupted.
+     * @return {@code SolverResult} the outcome of the search
+     */
+    public SolverResult solve() {
+        long timeStart = System.currentTimeMillis();
+        deadline = timeLimit == NO_TIME_LIMIT ? Long.MAX_VALUE : timeStart + timeLimit;
+        timedOut = false;
+        nodesExpanded = 0;
+
+        if (distances == null) {
+            distances = new PushDistances(board);
+            bound = new LowerBound(distances, board.goals.length, board.initialCrates.length);
+        }
+
+        if (algorithm == Algorithm.IDA_STAR) {
+            return searchIdaStar(timeStart);
+        }
+        return searchAStar(timeStart);
+    }
+
+    /**
+     * Search with A*, expanding the state with the lowest estimated total of pushes first.
+     * @param timeStart     the start time of the search
+     * @return {@code SolverResult} the outcome of the search
+     */
+    private SolverResult searchAStar(long timeStart) {
+        int[] crates = board.initialCrates.clone();
+        int h = bound.estimate(crates);
+        if (h == LowerBound.INFINITE) {
+            return result(SolverResult.Status.UNSOLVABLE, null, 0, timeStart);
+        }
+
+        table = new TranspositionTable(memoryLimit / 2);
+        long maxNodes = (memoryLimit / 2) / (NODE_BYTES + (long) Integer.BYTES * crates.length);
+        long nodesStored = 1;
+        PriorityQueue<Node> open = new PriorityQueue<>(NODE_ORDER);
+        open.add(new Node(crates, board.initialKeeper, Zobrist.hashCrates(crates), 0, h, null, -1, -1));
+
+        while (!open.isEmpty()) {
+            Node node = open.poll();
+            board.placeCrates(node.crates);
+            int region = board.reach(node.keeper);
+
+            if (!table.offer(node.crateHash ^ Zobrist.keeperKey(region), node.g)) {
+                continue;
+            }
+            if (table.isFull()) {
+                return result(SolverResult.Status.LIMIT_REACHED, null, 0, timeStart);
+            }
+
+            nodesExpanded++;
+            if (isOutOfTime()) {
+                return result(SolverResult.Status.TIMED_OUT, null, 0, timeStart);
+            }
+            if (node.f == node.g) {
+                return solved(node, timeStart);
+            }
+
+            for (int i = 0; i < node.crates.length; i++) {
+                int from = node.crates[i];
+                for (int d = 0; d < SearchBoard.DIRECTIONS; d++) {
+                    int to = canPush(from, d);
+                    if (to < 0) {
+                        continue;
+                    }
+
+                    int[] child = node.crates.clone();
+                    child[i] = to;
+                    int childH = bound.estimate(child);
+                    if (childH == LowerBound.INFINITE) {
+                        continue;
+                    }
+
+                    long childHash = node.crateHash ^ Zobrist.crateKey(from) ^ Zobrist.crateKey(to);
+                    open.add(new Node(child, from, childHash, node.g + 1, node.g + 1 + childH, node, from, d));
+                    if (++nodesStored > maxNodes) {
+                        return result(SolverResult.Status.LIMIT_REACHED, null, 0, timeStart);
+                    }
+                }
+            }
+        }
+
+        return result(SolverResult.Status.UNSOLVABLE, null, 0, timeStart);
+    }
+
+    /**
+     * Search with IDA*, a depth-first search bounded by the estimated total of pushes,
+     * raising the bound until a solution is found.
+     * @param timeStart     the start time of the search
+     * @return {@code SolverResult} the outcome of the search
+     */
+    private SolverResult searchIdaStar(long timeStart) {
+        int[] crates = board.initialCrates.clone();
+        int h = bound.estimate(crates);
+        if (h == LowerBound.INFINITE) {
+            return result(SolverResult.Status.UNSOLVABLE, null, 0, timeStart);
+        }
+
+        // The same share of the budget as A*, the rest is left to the JVM
+        table = new TranspositionTable(memoryLimit / 2);
+        pathFrom = new int[h + 1];
+        pathDirection = new int[h + 1];
+        threshold = h;
+
+        while (true) {
+            nextThreshold = Integer.MAX_VALUE;
+            table.clear();
+            int pushes = depthFirst(crates, board.initialKeeper, Zobrist.hashCrates(crates), 0, h);
+
+            if (timedOut) {
+                return result(SolverResult.Status.TIMED_OUT, null, 0, timeStart);
+            }
+            if (pushes >= 0) {
+                String moves = buildMoves(pathFrom, pathDirection, pushes);
+                return result(SolverResult.Status.SOLVED, moves, pushes, timeStart);
+            }
+            if (nextThreshold == Integer.MAX_VALUE) {
+                return result(SolverResult.Status.UNSOLVABLE, null, 0, timeStart);
+            }
+            threshold = nextThreshold;
+        }
+    }
+
+    /**
+     * Search the states below one state within the current threshold.
+     * @param crates    indexes of the crate cells, restored before returning
+     * @param keeper    the cell of the keeper
+     * @param crateHash     Zobrist hash of the crates
+     * @param g     pushes made so far
+     * @param h     estimated pushes left
+     * @return number of pushes of the solution, {@code -1} if none was found
+     */
+    private int depthFirst(int[] crates, int keeper, long crateHash, int g, int h) {
+        int f = g + h;
+        if (f > threshold) {
+            nextThreshold = Math.min(nextThreshold, f);
+            return -1;
+        }
+
+        board.placeCrates(crates);
+        int region = board.reach(keeper);
+        if (!table.offer(crateHash ^ Zobrist.keeperKey(region), g)) {
+            return -1;
+        }
+
+        nodesExpanded++;
+        if (timedOut || isOutOfTime()) {
+            return -1;
+        }
+        if (h == 0) {
+            return g;
+        }
+
+        // Collect the pushes first, the search below overwrites the reachable region
+        int[] pushes = new int[crates.length * SearchBoard.DIRECTIONS];
+        int count = 0;
+        for (int i = 0; i < crates.length; i++) {
+            for (int d = 0; d < SearchBoard.DIRECTIONS; d++) {
+                if (canPush(crates[i], d) >= 0) {
+                    pushes[count++] = i * SearchBoard.DIRECTIONS + d;
+                }
+            }
+        }
+
+        if (g >= pathFrom.length) {
+            pathFrom = Arrays.copyOf(pathFrom, g * 2);
+            pathDirection = Arrays.copyOf(pathDirection, g * 2);
+        }
+
+        for (int p = 0; p < count; p++) {
+            int i = pushes[p] / SearchBoard.DIRECTIONS;
+            int d = pushes[p] % SearchBoard.DIRECTIONS;
+            int from = crates[i];
+            int to = board.next(from, d);
+
+            crates[i] = to;
+            int childH = bound.estimate(crates);
+            if (childH != LowerBound.INFINITE) {
+                pathFrom[g] = from;
+                pathDirection[g] = d;
+                long childHash = crateHash ^ Zobrist.crateKey(from) ^ Zobrist.crateKey(to);
+                int solution = depthFirst(crates, from, childHash, g + 1, childH);
+                if (solution >= 0) {
+                    crates[i] = from;
+                    return solution;
+                }
+            }
+            crates[i] = from;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Check every so many expanded states if the search has to stop.
+     * @return {@code true} if the time is up or the thread was interrupted, {@code false} otherwise
+     */
+    private boolean isOutOfTime() {
+        if ((nodesExpanded & CLOCK_MASK) == 0
+                && (System.currentTimeMillis() > deadline || Thread.currentThread().isInterrupted())) {
+            timedOut = true;
+        }
+        return timedOut;
+    }
+
+    /**
+     * Check if the crate on a cell can be pushed in a direction, according to
+     * the crates placed and the region reached last on the board.
+     * @param from  the cell of the crate
+     * @param direction     direction of the push
+     * @return the cell the crate ends on, {@code -1} if the push is not possible or leads to a deadlock
+     */
+    private int canPush(int from, int direction) {
+        int to = board.next(from, direction);
+        if (to < 0 || board.hasCrate(to) || (pruneDeadSquares && board.deadCells[to])) {
+            return -1;
+        }
+
+        int behind = board.next(from, SearchBoard.opposite(direction));
+        if (behind < 0 || !board.isReached(behind)) {
+            return -1;
+        }
+        if (pruneDeadSquares && board.isDeadlockedAfterPush(from, to)) {
+            return -1;
+        }
+        return to;
+    }
+
+    /**
+     * Make the result of a solved A* node.
+     * @param node  the solved node
+     * @param timeStart     the start time of the search
+     * @return {@code SolverResult} the solved result
+     */
+    private SolverResult solved(Node node, long timeStart) {
+        int pushes = node.g;
+        int[] from = new int[pushes];
+        int[] directions = new int[pushes];
+        for (Node n = node; n.parent != null; n = n.parent) {
+            from[n.g - 1] = n.pushFrom;
+            directions[n.g - 1] = n.pushDirection;
+        }
+        return result(SolverResult.Status.SOLVED, buildMoves(from, directions, pushes), pushes, timeStart);
+    }
+
+    /**
+     * Replay the pushes from the start to write the full LURD solution.
+     * @param from  the cells of the pushed crates
+     * @param directions    directions of the pushes
+     * @param pushes    number of pushes
+     * @return the LURD solution
+     */
+    private String buildMoves(int[] from, int[] directions, int pushes) {
+        StringBuilder moves = new StringBuilder();
+        board.placeCrates(board.initialCrates);
+        int keeper = board.initialKeeper;
+
+        for (int p = 0; p < pushes; p++) {
+            int behind = board.next(from[p], SearchBoard.opposite(directions[p]));
+            if (!board.appendWalk(keeper, behind, moves)) {
+                throw new AssertionError("The keeper cannot reach the crate it has to push.");
+            }
+            moves.append(SearchBoard.moveChar(directions[p], true));
+            board.moveCrate(from[p], board.next(from[p], directions[p]));
+            keeper = from[p];
+        }
+
+        return moves.toString();
+    }
+
+    /**
+     * Make a result with the counters of this search.
+     * @param status    how the search ended
+     * @param moves     the LURD solution
+     * @param pushes    number of pushes of the solution
+     * @param timeStart     the start time of the search
+     * @return {@code SolverResult}
+     */
+    private SolverResult result(SolverResult.Status status, String moves, int pushes, long timeStart) {
+        return new SolverResult(levelName, status, moves, status == SolverResult.Status.SOLVED ? pushes : -1,
+                nodesExpanded, System.currentTimeMillis() - timeStart);
+    }
+
+    /**
+     * A state of the A* search, linked to the state it was pushed from.
+     */
+    private static final class Node {
+        final int[] crates;
+        final int keeper;
+        final long crateHash;
+        final int g;
+        final int f;
+        final Node parent;
+        final int pushFrom;
+        final int pushDirection;
+
+        /**
+         * Constructor to initialize the node.
+         * @param crates    indexes of the crate cells
+         * @param keeper    the cell of the keeper
+         * @param crateHash     Zobrist hash of the crates
+         * @param g     pushes made so far
+         * @param f     pushes made plus estimated pushes left
+         * @param parent    the node before the push
+         * @param pushFrom  the cell of the pushed crate
+         * @param pushDirection     direction of the push
+         */
+        Node(int[] crates, int keeper, long crateHash, int g, int f, Node parent, int pushFrom, int pushDirection) {
+            this.crates = crates;
+            this.keeper = keeper;
+            this.crateHash = crateHash;
+            this.g = g;
+            this.f = f;
+            this.parent = parent;
+            this.pushFrom = pushFrom;
+            this.pushDirection = pushDirection;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.sokoban.solver;
+
+/**
+ * The class SolverResult stores the outcome of solving one level.
+ * @author Yuyang LIN
+ */
+public final class SolverResult {
+
+    /**
+     * The enum Status shows how the search ended.
+     */
+    public enum Status {
+
+        /** A solution with the fewest pushes was found */
+        SOLVED,
+
+        /** Every reachable state was searched and none of them solves the level */
+        UNSOLVABLE,
+
+        /** The search ran out of memory before it could decide */
+        LIMIT_REACHED,
+
+        /** The search ran out of time or was interrupted before it could decide */
+        TIMED_OUT,
+
+        /** The level could not be built or the search stopped on an error */
+        FAILED
+    }
+
+    private final String levelName;
+    private final Status status;
+    private final String moves;
+    private final int pushes;
+    private final long nodesExpanded;
+    private final long timeMillis;
+
+    /**
+     * Constructor to initialize the result.
+     * @param levelName     the name of the level, {@code null} if it could not be built
+     * @param status    how the search ended
+     * @param moves     the LURD solution, {@code null} if it is not solved
+     * @param pushes    number of pushes of the solution, {@code -1} if it is not solved
+     * @param nodesExpanded     number of states expanded
+     * @param timeMillis    wall time of the search in milliseconds
+     */
+    SolverResult(String levelName, Status status, String moves, int pushes, long nodesExpanded, long timeMillis) {
+        this.levelName = levelName;
+        this.status = status;
+        this.moves = moves;
+        this.pushes = pushes;
+        this.nodesExpanded = nodesExpanded;
+        this.timeMillis = timeMillis;
+    }
+
+    /**
+     * Get the name of the level searched.
+     * @return {@code levelName}, {@code null} if the level could not be built
+     */
+    public String getLevelName() {
+        return levelName;
+    }
+
+    /**
+     * Get how the search ended.
+     * @return {@code status}
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Check if the level was solved.
+     * @return {@code true} if it was solved, {@code false} otherwise
+     */
+    public boolean isSolved() {
+        return status == Status.SOLVED;
+    }
+
+    /**
+     * Get the solution in LURD notation, upper case letters are pushes.
+     * @return {@code moves}, {@code null} if it is not solved
+     */
+    public String getMoves() {
+        return moves;
+    }
+
+    /**
+     * Get the number of pushes of the solution.
+     * @return {@code pushes}, {@code -1} if it is not solved
+     */
+    public int getPushes() {
+        return pushes;
+    }
+
+    /**
+     * Get the number of states expanded by the search.
+     * @return {@code nodesExpanded}
+     */
+    public long getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    /**
+     * Get the wall time of the search.
+     * @return {@code timeMillis}   time in milliseconds
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * Override of {@link String#toString()}.
+     * @return a one line summary of the result
+     */
+    @Override
+    public String toString() {
+        return status + " pushes: " + pushes + " nodes: " + nodesExpanded + " time: " + timeMillis + "ms";
+    }
+}
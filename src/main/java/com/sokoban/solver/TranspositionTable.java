@@ -0,0 +1,152 @@
+package com.sokoban.solver;
+
+import java.util.Arrays;
+
+/**
+ * The class TranspositionTable remembers the states already searched,
+ * keyed by their Zobrist hash, with the fewest pushes each was reached in.
+ * The table is an open-addressing array that starts small and doubles as it fills,
+ * never past the capacity its memory budget allows.
+ * Two states with the same 64-bit hash are taken as the same state.
+ * @author Yuyang LIN
+ */
+final class TranspositionTable {
+
+    /** Bytes used by one slot of the table */
+    static final int BYTES_PER_ENTRY = Long.BYTES + Integer.BYTES;
+
+    private static final long EMPTY = 0L;
+    // Stands in for a real hash of 0, which would look like an empty slot
+    private static final long ZERO_KEY = 0x8000000000000000L;
+    private static final int MIN_CAPACITY = 16;
+    private static final int INITIAL_CAPACITY = 1 << 12;
+
+    private final int maxCapacity;
+    private long[] keys;
+    private int[] pushes;
+    private int mask;
+    private int maxEntries;
+    private int entries = 0;
+
+    /**
+     * Constructor to make an empty table within a memory budget.
+     * The budget is a ceiling: the table only takes the memory the states it holds need.
+     * @param memoryLimit   the most bytes the table may use
+     */
+    TranspositionTable(long memoryLimit) {
+        long slots = Math.max(MIN_CAPACITY, memoryLimit / BYTES_PER_ENTRY);
+        maxCapacity = Integer.highestOneBit((int) Math.min(slots, 1 << 30));
+        allocate(Math.min(INITIAL_CAPACITY, maxCapacity));
+    }
+
+    /**
+     * Make empty arrays of a capacity.
+     * @param capacity  the number of slots, a power of two
+     */
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        pushes = new int[capacity];
+        mask = capacity - 1;
+        // Keep the load under three quarters so the probes stay short
+        maxEntries = capacity - (capacity >> 2);
+    }
+
+    /**
+     * Double the capacity and put the states recorded back in their new slots.
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldPushes = pushes;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i]);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                pushes[slot] = oldPushes[i];
+            }
+        }
+    }
+
+    /**
+     * Get the first slot to probe for a key.
+     * @param key   the key, never {@code EMPTY}
+     * @return the slot
+     */
+    private int slotOf(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    /**
+     * Record a state unless it was already reached in as few pushes.
+     * @param hash  Zobrist hash of the state
+     * @param g     pushes made to reach the state
+     * @return {@code true} if the state is new or reached in fewer pushes, {@code false} otherwise
+     */
+    boolean offer(long hash, int g) {
+        long key = hash == EMPTY ? ZERO_KEY : hash;
+        int slot = slotOf(key);
+
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                if (pushes[slot] <= g) {
+                    return false;
+                }
+                pushes[slot] = g;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (entries >= maxEntries) {
+            if (keys.length == maxCapacity) {
+                // A full table cannot rule the state out, so let the search go on
+                return true;
+            }
+            grow();
+            slot = slotOf(key);
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        keys[slot] = key;
+        pushes[slot] = g;
+        entries++;
+        return true;
+    }
+
+    /**
+     * Check if the table cannot take any more states, having grown as far as its budget allows.
+     * @return {@code true} if it is full, {@code false} otherwise
+     */
+    boolean isFull() {
+        return entries >= maxEntries && keys.length == maxCapacity;
+    }
+
+    /**
+     * Get the number of states recorded.
+     * @return {@code entries}
+     */
+    int size() {
+        return entries;
+    }
+
+    /**
+     * Get the number of slots allocated.
+     * @return the capacity
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Forget all the states, keeping the slots allocated so far.
+     */
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        entries = 0;
+    }
+}
@@ -27,11 +27,15 @@ public class MainPageView {
     private MenuItem menuItemLoadGame;
     private MenuItem menuItemExit;
     private MenuItem menuItemUndo;
+    private MenuItem menuItemRedo;
     private MenuItem menuItemResetLevel;
+    private MenuItem menuItemSetCheckpoint;
+    private MenuItem menuItemGotoCheckpoint;
     private MenuItem menuItemGame;
     private MenuItem menuItemHighScores;
     private RadioMenuItem radioMenuItemMusic;
     private RadioMenuItem radioMenuItemDebug;
+    private RadioMenuItem radioMenuItemDeadSquares;
     private Menu menuFile;
     private Menu menuAbout;
     private Menu menuLevel;
@@ -40,6 +44,7 @@ public class MainPageView {
     private Label movesCount;
     private Label timeCount;
     private Label levelDisplay;
+    private Label statusDisplay;
     private final int PRE_HEIGHT = 20;
 
     /**
@@ -66,6 +71,14 @@ public class MainPageView {
         levelDisplay.setText(label);
     }
 
+    /**
+     * Set the text to warn the player, such as a push that left the level unsolvable.
+     * @param label     the string to put in the label
+     */
+    public void setStatusText(String label) {
+        statusDisplay.setText(label);
+    }
+
     /**
      * Constructor to setup the basic elements of the main page.
      * @param controller    main page controller
@@ -124,12 +137,17 @@ public class MainPageView {
         menuFile.getItems().addAll(menuItemSaveGame, menuItemLoadGame,
                 new SeparatorMenuItem(),menuItemExit);
         menuItemUndo = new MenuItem("Undo");
+        menuItemRedo = new MenuItem("Redo");
         radioMenuItemMusic = new RadioMenuItem("Toggle Music");
         radioMenuItemDebug = new RadioMenuItem("Toggle Debug");
+        radioMenuItemDeadSquares = new RadioMenuItem("Block Dead Pushes");
         menuItemResetLevel = new MenuItem("Reset Level");
+        menuItemSetCheckpoint = new MenuItem("Set Checkpoint");
+        menuItemGotoCheckpoint = new MenuItem("Back to Checkpoint");
         menuLevel = new Menu("Level");
-        menuLevel.getItems().addAll(menuItemUndo, radioMenuItemMusic,
-                radioMenuItemDebug, new SeparatorMenuItem(),menuItemResetLevel);
+        menuLevel.getItems().addAll(menuItemUndo, menuItemRedo, radioMenuItemMusic,
+                radioMenuItemDebug, radioMenuItemDeadSquares, new SeparatorMenuItem(),
+                menuItemSetCheckpoint, menuItemGotoCheckpoint, menuItemResetLevel);
         menuItemGame = new MenuItem("About This Game");
         menuAbout = new Menu("About");
         menuAbout.getItems().addAll(menuItemGame);
@@ -140,7 +158,8 @@ public class MainPageView {
         movesCount = new Label();
         timeCount = new Label();
         levelDisplay = new Label();
-        display.addRow(0, movesCount, timeCount, levelDisplay);
+        statusDisplay = new Label();
+        display.addRow(0, movesCount, timeCount, levelDisplay, statusDisplay);
         mainPage.add(MENU,0,0);
         mainPage.add(display,0,1);
         mainPage.add(gameGrid,0,2);
@@ -154,9 +173,13 @@ public class MainPageView {
         menuItemLoadGame.setOnAction(actionEvent ->controller.loadGame());
         menuItemExit.setOnAction(actionEvent ->controller.closeGame());
         menuItemUndo.setOnAction(actionEvent ->controller.undo());
+        menuItemRedo.setOnAction(actionEvent ->controller.redo());
         radioMenuItemMusic.setOnAction(actionEvent ->controller.toggleMusic());
         radioMenuItemDebug.setOnAction(actionEvent ->controller.toggleDebug());
+        radioMenuItemDeadSquares.setOnAction(actionEvent ->controller.toggleDeadSquares());
         menuItemResetLevel.setOnAction(actionEvent ->controller.resetLevel());
+        menuItemSetCheckpoint.setOnAction(actionEvent ->controller.setCheckpoint());
+        menuItemGotoCheckpoint.setOnAction(actionEvent ->controller.gotoCheckpoint());
         menuItemGame.setOnAction(actionEvent ->controller.showAbout());
         menuItemHighScores.setOnAction(actionEvent ->controller.showScores());
     }
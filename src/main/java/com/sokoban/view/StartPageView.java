@@ -172,16 +172,16 @@ public class StartPageView {
             String choice = choiceBox.getValue().toString();
             switch (choice) {
                 case "Yellow":
-                    StageModel.wallColour = "Yellow";
+                    model.setWallColour("Yellow");
                     break;
                 case "Brown":
-                    StageModel.wallColour = "Brown";
+                    model.setWallColour("Brown");
                     break;
                 case "Grey":
-                    StageModel.wallColour = "Grey";;
+                    model.setWallColour("Grey");
                     break;
                 default:
-                    StageModel.wallColour = "Black";
+                    model.setWallColour("Black");
                     break;
             }
         });
@@ -0,0 +1,60 @@
+package com.sokoban.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryPackTest {
+
+    private LevelSource readSample() throws IOException {
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream("SampleGame.skb")) {
+            return new LevelSource(inputStream);
+        }
+    }
+
+    @Test
+    void testSameLevels() throws IOException {
+        LevelSource source = readSample();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BinaryPack.write(source.getMapSetName(), source, output);
+        BinaryPack pack = new BinaryPack(ByteBuffer.wrap(output.toByteArray()));
+
+        assertEquals(pack.getMapSetName(), source.getMapSetName());
+        assertEquals(pack.size(), source.size());
+        for (int i = pack.size() - 1; i >= 0; i--) {
+            assertEquals(pack.get(i).getName(), source.get(i).getName());
+            assertEquals(pack.get(i).getIndex(), i);
+            assertEquals(pack.get(i).toString(), source.get(i).toString());
+            assertEquals(pack.get(i).getKeeperPosition(), source.get(i).getKeeperPosition());
+            assertEquals(pack.get(i).getHash(), source.get(i).getHash());
+        }
+        assertSame(pack.get(0), pack.get(0));
+    }
+
+    @Test
+    void testMappedFile() throws IOException {
+        Path path = Files.createTempFile("sample", BinaryPack.EXTENSION);
+        // A mapped file may not be deleted while the mapping is alive
+        path.toFile().deleteOnExit();
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream("SampleGame.skb")) {
+            BinaryPack.convert(inputStream, path);
+        }
+        BinaryPack pack = BinaryPack.open(path);
+        assertEquals(pack.getMapSetName(), "Example Game!");
+        assertEquals(pack.get(pack.size() - 1).getName(), "And finally :-)");
+    }
+
+    @Test
+    void testNotAPack() {
+        ByteBuffer text = ByteBuffer.wrap("LevelName: One\n".getBytes());
+        assertFalse(BinaryPack.isPack(text));
+        assertThrows(IOException.class, () -> new BinaryPack(text));
+    }
+}
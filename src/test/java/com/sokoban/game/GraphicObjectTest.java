@@ -1,7 +1,5 @@
 package com.sokoban.game;
 
-import org.junit.jupiter.api.BeforeAll;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.net.URISyntaxException;
@@ -10,12 +8,31 @@ import static org.junit.jupiter.api.Assertions.*;
 
 class GraphicObjectTest {
 
-    private final int D_UP = 0;
+    private final short D_UP = 0;
+    private final short D_DOWN = 2;
 
     @Test
-    void testGiveDirection() {
-        GraphicObject.giveDirection((short) D_UP);
-        assertEquals(GraphicObject.direction, D_UP);
+    void testDirectionPerObject() throws URISyntaxException {
+        GraphicObject up = new GraphicObject(GameObject.KEEPER, D_UP, null, false);
+        GraphicObject down = new GraphicObject(GameObject.KEEPER, D_DOWN, "Grey", false);
+        assertEquals(up.setDirection(), SpriteCache.keeperPath(D_UP));
+        assertEquals(down.setDirection(), SpriteCache.keeperPath(D_DOWN));
+        assertEquals(up.setWall(), SpriteCache.wallPath(null));
+        assertEquals(down.setWall(), SpriteCache.wallPath("Grey"));
     }
 
-}
\ No newline at end of file
+    @Test
+    void testShowInPlace() throws URISyntaxException {
+        GraphicObject tile = new GraphicObject(GameObject.KEEPER, D_UP, null, false);
+        assertTrue(tile.show(GameObject.KEEPER, D_DOWN));
+        assertEquals(tile.setDirection(), SpriteCache.keeperPath(D_DOWN));
+        assertTrue(tile.show(GameObject.DIAMOND, D_DOWN));
+        assertEquals(tile.getFill(), SpriteCache.getPattern(SpriteCache.pathOf(GameObject.DIAMOND, null, D_DOWN)));
+
+        // A fading diamond in debug mode needs a node of its own
+        GraphicObject debug = new GraphicObject(GameObject.FLOOR, D_UP, null, true);
+        assertTrue(debug.show(GameObject.CRATE, D_UP));
+        assertFalse(debug.show(GameObject.DIAMOND, D_UP));
+    }
+
+}
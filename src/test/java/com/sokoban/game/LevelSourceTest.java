@@ -0,0 +1,64 @@
+package com.sokoban.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LevelSourceTest {
+
+    private final int LEVELS = 6;
+
+    @Test
+    void testSampleGame() throws IOException {
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream("SampleGame.skb")) {
+            LevelSource source = new LevelSource(inputStream);
+            assertEquals(source.getMapSetName(), "Example Game!");
+            assertEquals(source.size(), LEVELS);
+            assertEquals(source.get(0).getName(), "Hello");
+            assertEquals(source.get(0).getKeeperPosition(), new Point(15, 8));
+            assertEquals(source.get(LEVELS - 1).getName(), "And finally :-)");
+            assertEquals(source.get(LEVELS - 1).getIndex(), LEVELS - 1);
+        }
+    }
+
+    @Test
+    void testLevelBuiltOnce() throws IOException {
+        LevelSource source = new LevelSource(stream("LevelName: One\nWWW\nWSW\nWWW\n"));
+        assertSame(source.get(0), source.get(0));
+    }
+
+    @Test
+    void testLineBreaks() throws IOException {
+        LevelSource source = new LevelSource(stream(
+                "MapSetName: Breaks\r\nLevelName: One\r\nWWWW\r\nwS w\r\nWWWW\r\n\r\nLevelName: Two\rWWW\rWSW\rWWW"));
+        assertEquals(source.getMapSetName(), "Breaks");
+        assertEquals(source.size(), 2);
+        assertEquals(source.get(0).getBoard().getHeight(), 3);
+        assertEquals(source.get(0).getObjectAt(1, 0), GameObject.WALL);
+        assertEquals(source.get(1).getName(), "Two");
+        assertEquals(source.get(1).getKeeperPosition(), new Point(1, 1));
+    }
+
+    @Test
+    void testNoLevelName() throws IOException {
+        LevelSource source = new LevelSource(stream("WWW\nWSW\nWWW\n"));
+        assertNull(source.getMapSetName());
+        assertEquals(source.size(), 1);
+        assertEquals(source.get(0).getName(), "");
+    }
+
+    @Test
+    void testEmptyLastLevel() throws IOException {
+        LevelSource source = new LevelSource(stream("LevelName: One\nWWW\nWSW\nWWW\nLevelName: Empty\n"));
+        assertEquals(source.size(), 1);
+    }
+
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes());
+    }
+}
@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 import java.awt.*;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -79,4 +80,178 @@ class LevelTest {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCompleteAfterPush() {
+        Level level = new Level("Push", 0, Arrays.asList(
+                "WWWWW",
+                "WSCDW",
+                "WWWWW"));
+        assertFalse(level.isComplete());
+        level.moveGameObjectTo(GameObject.CRATE, 1, 2, 1, 3);
+        level.moveGameObjectTo(GameObject.KEEPER, 1, 1, 1, 2);
+        assertEquals(level.getCratedDiamondsCount(), 1);
+        assertTrue(level.isComplete());
+        level.moveGameObjectTo(GameObject.KEEPER, 1, 2, 1, 1);
+        level.moveGameObjectTo(GameObject.CRATE, 1, 3, 1, 2);
+        assertEquals(level.getCratedDiamondsCount(), 0);
+    }
+
+    @Test
+    void testCrateOnDiamond() {
+        // A crate that starts on its diamond counts as a diamond and as a crated diamond
+        Level level = new Level("On goal", 0, Arrays.asList(
+                "WWWWWW",
+                "WSCDOW",
+                "WWWWWW"));
+        assertEquals(level.getCratedDiamondsCount(), 1);
+        assertFalse(level.isComplete());
+        level.moveGameObjectTo(GameObject.CRATE, 1, 2, 1, 3);
+        level.moveGameObjectTo(GameObject.KEEPER, 1, 1, 1, 2);
+        assertEquals(level.getCratedDiamondsCount(), 2);
+        assertTrue(level.isComplete());
+
+        // The diamond stays when its crate is pushed off
+        Level pushedOff = new Level("Off goal", 0, Arrays.asList(
+                "WWWWWW",
+                "WSO  W",
+                "WWWWWW"));
+        assertTrue(pushedOff.isComplete());
+        pushedOff.moveGameObjectTo(GameObject.CRATE, 1, 2, 1, 3);
+        pushedOff.moveGameObjectTo(GameObject.KEEPER, 1, 1, 1, 2);
+        assertEquals(pushedOff.getCratedDiamondsCount(), 0);
+        assertFalse(pushedOff.isComplete());
+        assertTrue(pushedOff.getBoard().has(pushedOff.getBoard().indexOf(1, 2), PackedBoard.DIAMOND));
+    }
+
+    @Test
+    void testHash() {
+        Level level = new Level("Hash", 0, Arrays.asList(
+                "WWWWWW",
+                "WS CDW",
+                "WWWWWW"));
+        long start = level.getHash();
+        level.moveGameObjectTo(GameObject.KEEPER, 1, 1, 1, 2);
+        level.getKeeperPosition().translate(0, 1);
+        assertEquals(level.getHash(), start);
+
+        level.moveGameObjectTo(GameObject.CRATE, 1, 3, 1, 4);
+        level.moveGameObjectTo(GameObject.KEEPER, 1, 2, 1, 3);
+        level.getKeeperPosition().translate(0, 1);
+        assertNotEquals(level.getHash(), start);
+
+        level.moveGameObjectTo(GameObject.KEEPER, 1, 3, 1, 2);
+        level.getKeeperPosition().translate(0, -1);
+        level.moveGameObjectTo(GameObject.CRATE, 1, 4, 1, 3);
+        assertEquals(level.getHash(), start);
+    }
+
+    @Test
+    void testDeadSquares() {
+        Level level = new Level("Dead", 0, Arrays.asList(
+                "WWWWW",
+                "W   W",
+                "W  SW",
+                "W  DW",
+                "WWWWW"));
+        assertTrue(level.isDeadSquare(1, 1));
+        assertTrue(level.isDeadSquare(1, 3));
+        assertFalse(level.isDeadSquare(3, 3));
+        assertFalse(level.isDeadSquare(2, 3));
+        assertFalse(level.isDeadSquare(0, 0));
+    }
+
+    @Test
+    void testDeadlocks() {
+        Level freeze = new Level("Freeze", 0, Arrays.asList(
+                "WWWWWWW",
+                "W DO  W",
+                "W   C W",
+                "W   S W",
+                "WWWWWWW"));
+        push(freeze, 2, 4, -1, 0);
+        assertTrue(freeze.isDeadlockedAfterPush(1, 4));
+
+        Level free = new Level("Free", 0, Arrays.asList(
+                "WWWWWWW",
+                "W D   W",
+                "W   C W",
+                "W   S W",
+                "WWWWWWW"));
+        push(free, 2, 4, -1, 0);
+        assertFalse(free.isDeadlockedAfterPush(1, 4));
+
+        Level corral = new Level("Corral", 0, Arrays.asList(
+                "WWWWWWW",
+                "WD DO W",
+                "WWWC  W",
+                "W CS  W",
+                "WWWWWWW"));
+        push(corral, 2, 3, -1, 0);
+        assertTrue(corral.isDeadlockedAfterPush(1, 3));
+    }
+
+    @Test
+    void testChangedCells() {
+        Level level = new Level("Changed", 0, Arrays.asList(
+                "WWWWWW",
+                "W SCDW",
+                "WWWWWW"));
+        int[] cells = new int[Level.MAX_CHANGED_CELLS];
+        assertEquals(level.takeChangedCells(cells), 0);
+
+        push(level, 1, 3, 0, 1);
+        int count = level.takeChangedCells(cells);
+        assertEquals(count, 4);
+        assertEquals(level.takeChangedCells(cells), 0);
+
+        for (int i = 0; i < Level.MAX_CHANGED_CELLS; i++) {
+            level.moveGameObjectTo(GameObject.KEEPER, 1, 1, 1, 2);
+        }
+        assertEquals(level.takeChangedCells(cells), -1);
+        assertEquals(level.takeChangedCells(cells), 0);
+    }
+
+    @Test
+    void testSnapshot() {
+        Level level = new Level("Snapshot", 0, Arrays.asList(
+                "WWWWWWWW",
+                "WSCD CDW",
+                "WWWWWWWW"));
+        String start = level.toString();
+        long hash = level.getHash();
+
+        push(level, 1, 2, 0, 1);
+        Level.Snapshot pushed = level.snapshot();
+        String afterPush = level.toString();
+        level.moveGameObjectTo(GameObject.KEEPER, 1, 2, 1, 4);
+        level.getKeeperPosition().translate(0, 2);
+        push(level, 1, 5, 0, 1);
+        assertTrue(level.isComplete());
+
+        level.restore(pushed);
+        assertEquals(level.toString(), afterPush);
+        assertEquals(level.getKeeperPosition(), new Point(1, 2));
+        assertEquals(level.getCratedDiamondsCount(), 1);
+        assertFalse(level.isComplete());
+
+        level.reset();
+        assertEquals(level.toString(), start);
+        assertEquals(level.getHash(), hash);
+        assertEquals(level.getKeeperPosition(), new Point(1, 1));
+        assertEquals(level.getCratedDiamondsCount(), 0);
+        assertEquals(level.takeChangedCells(new int[Level.MAX_CHANGED_CELLS]), -1);
+
+        Level other = new Level("Other", 1, Arrays.asList("WWW", "WSW", "WWW"));
+        assertThrows(IllegalArgumentException.class, () -> other.restore(pushed));
+    }
+
+    /**
+     * Push a crate one cell, the keeper standing right behind it.
+     */
+    private static void push(Level level, int row, int col, int dRow, int dCol) {
+        level.moveGameObjectTo(GameObject.CRATE, row, col, row + dRow, col + dCol);
+        level.moveGameObjectTo(GameObject.KEEPER, row - dRow, col - dCol, row, col);
+        level.getKeeperPosition().translate(dRow, dCol);
+    }
+}
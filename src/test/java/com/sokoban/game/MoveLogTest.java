@@ -0,0 +1,58 @@
+package com.sokoban.game;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveLogTest {
+
+    private final int D_UP = 0;
+    private final int D_RIGHT = 1;
+    private final int D_DOWN = 2;
+    private final int D_LEFT = 3;
+
+    @Test
+    void testEncode() {
+        int move = MoveLog.encode(D_LEFT, true);
+        assertEquals(MoveLog.directionOf(move), D_LEFT);
+        assertTrue(MoveLog.isPush(move));
+        assertFalse(MoveLog.isPush(MoveLog.encode(D_UP, false)));
+    }
+
+    @Test
+    void testUndoRedo() {
+        MoveLog log = new MoveLog();
+        log.add(D_UP, false);
+        log.add(D_RIGHT, true);
+        assertEquals(log.toString(), "uR");
+
+        assertEquals(log.undo(), MoveLog.encode(D_RIGHT, true));
+        assertEquals(log.size(), 1);
+        assertEquals(log.redoSize(), 1);
+        assertEquals(log.redo(), MoveLog.encode(D_RIGHT, true));
+        assertEquals(log.redo(), MoveLog.NO_MOVE);
+
+        log.undo();
+        log.undo();
+        assertEquals(log.undo(), MoveLog.NO_MOVE);
+
+        // Playing the next move again keeps the rest, playing another one drops it
+        log.add(D_UP, false);
+        assertEquals(log.redoSize(), 1);
+        log.add(D_DOWN, false);
+        assertEquals(log.redoSize(), 0);
+        assertEquals(log.toString(), "ud");
+    }
+
+    @Test
+    void testGrows() {
+        final int moves = 10000;
+        MoveLog log = new MoveLog();
+        for (int i = 0; i < moves; i++) {
+            log.add(i % 4, i % 3 == 0);
+        }
+        assertEquals(log.size(), moves);
+        assertEquals(log.get(moves - 1), MoveLog.encode((moves - 1) % 4, (moves - 1) % 3 == 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> log.get(moves));
+    }
+}
@@ -0,0 +1,103 @@
+package com.sokoban.game;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveTreeTest {
+
+    private final int D_UP = 0;
+    private final int D_RIGHT = 1;
+    private final int D_DOWN = 2;
+    private final int D_LEFT = 3;
+    Level level;
+    MoveTree tree;
+
+    @BeforeEach
+    void setUp() {
+        level = new Level("Tree", 0, Arrays.asList(
+                "WWWWWW",
+                "W    W",
+                "W S  W",
+                "W  C W",
+                "W   DW",
+                "WWWWWW"));
+        tree = new MoveTree(level);
+    }
+
+    @Test
+    void testBranches() {
+        int right = play(D_RIGHT, false);
+        int pushed = play(D_DOWN, true);
+        undo();
+        undo();
+        int down = play(D_DOWN, false);
+        assertEquals(tree.getNodeCount(), 4);
+        assertEquals(tree.firstChildOf(MoveTree.ROOT), down);
+        assertEquals(tree.nextSiblingOf(down), right);
+        assertEquals(tree.commonAncestor(down, pushed), MoveTree.ROOT);
+
+        // Playing a move again follows its branch instead of adding a node
+        undo();
+        assertEquals(play(D_RIGHT, false), right);
+        assertEquals(tree.getNodeCount(), 4);
+        assertEquals(tree.peekRedo(), MoveLog.encode(D_DOWN, true));
+        assertEquals(tree.getCurrent(), right);
+    }
+
+    @Test
+    void testJumpTo() {
+        play(D_RIGHT, false);
+        int pushed = play(D_DOWN, true);
+        String atPush = level.toString();
+        undo();
+        undo();
+        int left = play(D_LEFT, false);
+
+        tree.jumpTo(pushed);
+        assertEquals(level.toString(), atPush);
+        assertEquals(level.getKeeperPosition(), new Point(3, 3));
+        assertEquals(tree.toMoveLog().toString(), "rD");
+
+        tree.jumpTo(left);
+        assertEquals(level.getKeeperPosition(), new Point(2, 1));
+        tree.jumpTo(MoveTree.ROOT);
+        assertEquals(level.getKeeperPosition(), new Point(2, 2));
+        assertEquals(tree.redoSize(), 1);
+    }
+
+    @Test
+    void testJumpFarFromSnapshots() {
+        final int steps = MoveTree.SNAPSHOT_INTERVAL * 3 + 5;
+        int node = MoveTree.ROOT;
+        for (int i = 0; i < steps; i++) {
+            node = play(i % 2 == 0 ? D_UP : D_DOWN, false);
+        }
+        int middle = tree.parentOf(tree.parentOf(node));
+        tree.jumpTo(MoveTree.ROOT);
+        tree.jumpTo(middle);
+        assertEquals(tree.size(), steps - 2);
+        assertEquals(level.getKeeperPosition(), new Point(1, 2));
+        assertEquals(tree.redoSize(), 2);
+    }
+
+    /**
+     * Play a move on the level and record it.
+     */
+    private int play(int direction, boolean push) {
+        int move = MoveLog.encode(direction, push);
+        level.applyMove(move);
+        return tree.add(move);
+    }
+
+    /**
+     * Take back the last move on the level.
+     */
+    private void undo() {
+        level.revertMove(tree.undo());
+    }
+}
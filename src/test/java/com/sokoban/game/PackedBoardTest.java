@@ -0,0 +1,49 @@
+package com.sokoban.game;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedBoardTest {
+
+    private final int WIDTH = 5;
+    private final int HEIGHT = 4;
+    private final int ROW = 2;
+    private final int COL = 3;
+    PackedBoard board;
+    int index;
+
+    @BeforeEach
+    void setUp() {
+        board = new PackedBoard(WIDTH, HEIGHT);
+        index = board.indexOf(ROW, COL);
+    }
+
+    @Test
+    void testIndexOf() {
+        assertEquals(index, ROW * WIDTH + COL);
+        assertEquals(board.rowOf(index), ROW);
+        assertEquals(board.colOf(index), COL);
+    }
+
+    @Test
+    void testStartsAsWall() {
+        assertEquals(board.getObjectAt(ROW, COL), GameObject.WALL);
+    }
+
+    @Test
+    void testPutObjectKeepsDiamond() {
+        board.putObjectAt(GameObject.DIAMOND, index);
+        assertEquals(board.getDisplayObjectAt(index), GameObject.DIAMOND);
+        board.putObjectAt(GameObject.CRATE, index);
+        assertEquals(board.getObjectAt(index), GameObject.CRATE);
+        assertEquals(board.getDisplayObjectAt(index), GameObject.CRATE_ON_DIAMOND);
+        board.putObjectAt(GameObject.FLOOR, index);
+        assertEquals(board.getDisplayObjectAt(index), GameObject.DIAMOND);
+    }
+
+    @Test
+    void testOutOfBounds() {
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> board.getObjectAt(HEIGHT, 0));
+    }
+}
@@ -0,0 +1,53 @@
+package com.sokoban.game;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayTest {
+
+    @Test
+    void testRunLengths() {
+        MoveLog moves = Replay.parseMoves("3rU2dl");
+        assertEquals(moves.toString(), "rrrUddl");
+        assertEquals(Replay.formatMoves(moves), "3rU2dl");
+        assertEquals(Replay.parseMoves("12L").size(), 12);
+        assertThrows(IllegalArgumentException.class, () -> Replay.parseMoves("rx"));
+        assertThrows(IllegalArgumentException.class, () -> Replay.parseMoves("r3"));
+    }
+
+    @Test
+    void testBadRunLengths() {
+        // Too many moves, a run that would overflow, and runs starting with 0
+        assertThrows(IllegalArgumentException.class, () -> Replay.parseMoves("2000000000r"));
+        assertThrows(IllegalArgumentException.class, () -> Replay.parseMoves("99999999999999999999r"));
+        assertThrows(IllegalArgumentException.class, () -> Replay.parseMoves("0r"));
+        assertThrows(IllegalArgumentException.class, () -> Replay.parseMoves("05r"));
+        assertEquals(Replay.parseMoves("10r").size(), 10);
+
+        // The limit counts every run of the line
+        assertEquals(Replay.parseMoves("3r2d", 5).size(), 5);
+        assertThrows(IllegalArgumentException.class, () -> Replay.parseMoves("3r3d", 5));
+        assertThrows(IllegalArgumentException.class, () -> Replay.parseMoves("3rrd", 4));
+        assertEquals(Replay.parseMoves(Replay.MAX_MOVES + "u").size(), Replay.MAX_MOVES);
+        assertThrows(IllegalArgumentException.class, () -> Replay.parseMoves(Replay.MAX_MOVES + "uu"));
+        assertThrows(IllegalArgumentException.class,
+                () -> Replay.parse("R1\t0\t9\t0\tAnn\t" + Integer.MAX_VALUE + "r"));
+    }
+
+    @Test
+    void testLine() {
+        Replay replay = new Replay(0xF00DL, 9, 1500, "Ann\tLee", Replay.parseMoves("rrUl"));
+        Replay read = Replay.parse(replay.toString());
+        assertEquals(read.getPuzzleHash(), 0xF00DL);
+        assertEquals(read.getClaimedMoves(), 9);
+        assertEquals(read.getTimeMillis(), 1500);
+        assertEquals(read.getPlayer(), "Ann Lee");
+        assertEquals(read.getMoves().toString(), "rrUl");
+
+        // The hash uses all 64 bits
+        assertEquals(Replay.parse(new Replay(-1L, 0, 0, "", new MoveLog()).toString()).getPuzzleHash(), -1L);
+        assertThrows(IllegalArgumentException.class, () -> Replay.parse("R2\t0\t0\t0\tAnn\tr"));
+        assertThrows(IllegalArgumentException.class, () -> Replay.parse("R1\t0\t0\tAnn\tr"));
+    }
+}
@@ -0,0 +1,71 @@
+package com.sokoban.game;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayVerifierTest {
+
+    private static final String GAME = "MapSetName: Replays\n"
+            + "LevelName: One\nWWWWWW\nWS CDW\nWWWWWW\n\n"
+            + "LevelName: Two\nWWWWW\nW D W\nW C W\nW S W\nWWWWW\n";
+    ReplayVerifier verifier;
+    long one;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        LevelSource levels = new LevelSource(new ByteArrayInputStream(GAME.getBytes(StandardCharsets.UTF_8)));
+        one = levels.get(0).getPuzzleHash();
+        verifier = new ReplayVerifier(levels);
+    }
+
+    @Test
+    void testVerdicts() {
+        assertEquals(verify(one, 2, "rR"), ReplayVerifier.Verdict.VALID);
+        // Undone moves are counted too
+        assertEquals(verify(one, 5, "rR"), ReplayVerifier.Verdict.VALID);
+        assertEquals(verify(one, 1, "rR"), ReplayVerifier.Verdict.WRONG_MOVE_COUNT);
+        assertEquals(verify(one, 2, "rr"), ReplayVerifier.Verdict.ILLEGAL_MOVE);
+        assertEquals(verify(one, 2, "lR"), ReplayVerifier.Verdict.ILLEGAL_MOVE);
+        assertEquals(verify(one, 3, "rRl"), ReplayVerifier.Verdict.ILLEGAL_MOVE);
+        assertEquals(verify(one, 1, "r"), ReplayVerifier.Verdict.NOT_SOLVED);
+        assertEquals(verify(one + 1, 2, "rR"), ReplayVerifier.Verdict.UNKNOWN_LEVEL);
+    }
+
+    @Test
+    void testLevelsFoundByHash() {
+        Level two = new Level("Two", 1, Arrays.asList("WWWWW", "W D W", "W C W", "W S W", "WWWWW"));
+        assertEquals(verify(two.getPuzzleHash(), 1, "U"), ReplayVerifier.Verdict.VALID);
+        assertEquals(verify(one, 2, "rR"), ReplayVerifier.Verdict.VALID);
+    }
+
+    @Test
+    void testReplayOfGame() {
+        StartMeUp gameEngine = new StartMeUp(new ByteArrayInputStream(GAME.getBytes(StandardCharsets.UTF_8)));
+        final short D_RIGHT = 1;
+        final short D_LEFT = 3;
+        assertNull(gameEngine.getLastReplay("Ann"));
+        gameEngine.move(D_RIGHT);
+        gameEngine.move(D_LEFT);
+        gameEngine.undo();
+        gameEngine.move(D_RIGHT);
+
+        Replay replay = gameEngine.getLastReplay("Ann");
+        assertEquals(replay.getMoves().toString(), "rR");
+        assertEquals(replay.getClaimedMoves(), 3);
+        assertEquals(verifier.verify(Replay.parse(replay.toString())), ReplayVerifier.Verdict.VALID);
+    }
+
+    /**
+     * Check a replay of moves in LURD notation.
+     */
+    private ReplayVerifier.Verdict verify(long hash, int claimed, String lurd) {
+        return verifier.verify(new Replay(hash, claimed, 0, "Ann", Replay.parseMoves(lurd)));
+    }
+}
@@ -0,0 +1,147 @@
+package com.sokoban.game;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StartMeUpTest {
+
+    private final short D_RIGHT = 1;
+    private final short D_LEFT = 3;
+    StartMeUp gameEngine;
+    List<String> events;
+
+    @BeforeEach
+    void setUp() {
+        gameEngine = new StartMeUp(new ByteArrayInputStream((
+                "MapSetName: Headless\n"
+                        + "LevelName: One\nWWWWW\nWSCDW\nWWWWW\n\n"
+                        + "LevelName: Two\nWWWWWW\nWS CDW\nWWWWWW\n").getBytes(StandardCharsets.UTF_8)));
+        events = new ArrayList<>();
+        gameEngine.addListener(new GameListener() {
+            @Override
+            public void onMove(short direction, GameObject target) {
+                events.add("move " + direction + " " + target);
+            }
+
+            @Override
+            public void onUndo() {
+                events.add("undo");
+            }
+
+            @Override
+            public void onLevelComplete(Level level) {
+                events.add("level " + level.getName());
+            }
+
+            @Override
+            public void onGameComplete() {
+                events.add("game");
+            }
+        });
+    }
+
+    @Test
+    void testPlayWithoutToolkit() {
+        gameEngine.move(D_RIGHT);
+        assertEquals(gameEngine.getCurrentLevel().getName(), "Two");
+        assertTrue(gameEngine.isLevelComplete());
+
+        gameEngine.move(D_RIGHT);
+        gameEngine.move(D_RIGHT);
+        assertTrue(gameEngine.isGameComplete());
+        assertEquals(gameEngine.getMovesCount(), 3);
+        assertEquals(events, List.of("move 1 CRATE", "level One",
+                "move 1 FLOOR", "move 1 CRATE", "level Two", "game"));
+    }
+
+    @Test
+    void testUndo() {
+        gameEngine.move(D_RIGHT);
+        gameEngine.move(D_RIGHT);
+        assertTrue(gameEngine.undo());
+        assertEquals(gameEngine.getCurrentLevel().getKeeperPosition(), new Point(1, 1));
+        assertEquals(gameEngine.getCurrentLevel().getObjectAt(1, 1), GameObject.KEEPER);
+        assertFalse(gameEngine.undo());
+        // An undo costs a move
+        assertEquals(gameEngine.getMovesCount(), 3);
+        assertEquals(events.get(events.size() - 1), "undo");
+
+        gameEngine.move(D_RIGHT);
+        assertTrue(gameEngine.undo());
+        assertEquals(gameEngine.getCurrentLevel().getObjectAt(1, 2), GameObject.FLOOR);
+        assertEquals(gameEngine.getCurrentLevel().getObjectAt(1, 3), GameObject.CRATE);
+    }
+
+    @Test
+    void testRedo() {
+        gameEngine.move(D_RIGHT);
+        gameEngine.move(D_RIGHT);
+        gameEngine.undo();
+        assertEquals(gameEngine.getMoveLog().toString(), "");
+        assertEquals(gameEngine.getMoveLog().redoSize(), 1);
+        assertTrue(gameEngine.redo());
+        assertEquals(gameEngine.getMoveLog().toString(), "r");
+        assertEquals(gameEngine.getCurrentLevel().getKeeperPosition(), new Point(1, 2));
+        assertFalse(gameEngine.redo());
+    }
+
+    @Test
+    void testResetAndCheckpoints() {
+        StartMeUp longLevel = new StartMeUp(new ByteArrayInputStream((
+                "LevelName: Long\nWWWWWWWWW\nWS    CDW\nWWWWWWWWW\n").getBytes(StandardCharsets.UTF_8)));
+        Point keeper = longLevel.getCurrentLevel().getKeeperPosition();
+        for (int i = 0; i < 3; i++) {
+            longLevel.move(D_RIGHT);
+        }
+        assertEquals(longLevel.addCheckpoint(), 0);
+        longLevel.move(D_RIGHT);
+        longLevel.move(D_LEFT);
+
+        assertTrue(longLevel.resetLevel());
+        assertEquals(keeper, new Point(1, 1));
+        assertEquals(longLevel.getMoveLog().redoSize(), 5);
+        assertEquals(longLevel.getMovesCount(), 10);
+
+        assertTrue(longLevel.gotoCheckpoint(0));
+        assertEquals(keeper, new Point(1, 4));
+        assertEquals(longLevel.getMoveLog().toString(), "rrr");
+        assertEquals(longLevel.getMovesCount(), 13);
+
+        // Playing another line before the checkpoint starts a branch, the checkpoint stays
+        longLevel.undo();
+        longLevel.undo();
+        longLevel.move(D_LEFT);
+        assertEquals(longLevel.getMoveLog().toString(), "rl");
+        assertEquals(longLevel.getCheckpointCount(), 1);
+        assertTrue(longLevel.gotoCheckpoint(0));
+        assertEquals(keeper, new Point(1, 4));
+        assertEquals(longLevel.getMoveLog().toString(), "rrr");
+        assertFalse(longLevel.gotoCheckpoint(1));
+    }
+
+    @Test
+    void testIndependentSessions() {
+        InputStream inputStream = getClass().getClassLoader().getResourceAsStream("SampleGame.skb");
+        StartMeUp first = StartMeUp.getInstance(inputStream);
+        inputStream = getClass().getClassLoader().getResourceAsStream("SampleGame.skb");
+        StartMeUp second = StartMeUp.getInstance(inputStream);
+        assertNotSame(first.getCurrentLevel(), second.getCurrentLevel());
+
+        first.toggleDebug();
+        first.move(D_RIGHT);
+        assertTrue(first.isDebugActive());
+        assertFalse(second.isDebugActive());
+        assertEquals(first.getDirection(), D_RIGHT);
+        assertEquals(second.getMovesCount(), 0);
+        assertEquals(second.getCurrentLevel().getKeeperPosition(), new Point(15, 8));
+    }
+}
@@ -0,0 +1,77 @@
+package com.sokoban.logger;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogQueueTest {
+
+    @Test
+    void testRing() {
+        LogQueue<String> queue = new LogQueue<>(4);
+        assertTrue(queue.isEmpty());
+        for (String record : new String[] {"a", "b", "c", "d"}) {
+            assertTrue(queue.offer(record));
+        }
+        assertFalse(queue.offer("e"));
+
+        List<String> batch = new ArrayList<>();
+        assertEquals(queue.drainTo(batch, 3), 3);
+        assertEquals(batch, Arrays.asList("a", "b", "c"));
+
+        // The slots taken are used again
+        assertTrue(queue.offer("f"));
+        assertTrue(queue.offer("g"));
+        assertEquals(queue.drainTo(batch, 10), 3);
+        assertEquals(batch, Arrays.asList("a", "b", "c", "d", "f", "g"));
+        assertTrue(queue.isEmpty());
+        assertEquals(queue.drainTo(batch, 10), 0);
+
+        assertThrows(IllegalArgumentException.class, () -> new LogQueue<String>(6));
+    }
+
+    @Test
+    void testConcurrentProducers() throws InterruptedException {
+        final int threads = 4;
+        final int perThread = 20000;
+        LogQueue<Integer> queue = new LogQueue<>(64);
+        Thread[] producers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    while (!queue.offer(thread * perThread + i)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            producers[t].start();
+        }
+
+        // Each record is taken once, and the records of a thread in the order they were added
+        int[] last = new int[threads];
+        Arrays.fill(last, -1);
+        List<Integer> batch = new ArrayList<>();
+        int count = 0;
+        while (count < threads * perThread) {
+            batch.clear();
+            queue.drainTo(batch, 16);
+            for (int record : batch) {
+                assertTrue(record % perThread > last[record / perThread]);
+                last[record / perThread] = record % perThread;
+                count++;
+            }
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertTrue(queue.isEmpty());
+        for (int t = 0; t < threads; t++) {
+            assertEquals(last[t], perThread - 1);
+        }
+    }
+}
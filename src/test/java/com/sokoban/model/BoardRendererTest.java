@@ -0,0 +1,105 @@
+package com.sokoban.model;
+
+import com.sokoban.game.GameObject;
+import com.sokoban.game.Level;
+import javafx.scene.layout.GridPane;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardRendererTest {
+
+    private final short D_RIGHT = 1;
+    RecordingRenderer renderer;
+    Level level;
+
+    @BeforeEach
+    void setUp() {
+        renderer = new RecordingRenderer();
+        level = new Level("Wide", 0, Arrays.asList(
+                "WWWWWWWWWWWW",
+                "WS  C     DW",
+                "WWWWWWWWWWWW"));
+    }
+
+    @Test
+    void testWholeBoard() {
+        assertTrue(renderer.draw(level, D_RIGHT, null, false));
+        assertEquals(renderer.drawn.length, 3 * 12);
+        assertFalse(renderer.draw(level, D_RIGHT, null, false));
+        assertEquals(renderer.cellsDrawn, 0);
+    }
+
+    @Test
+    void testOnlyChangedCells() {
+        renderer.draw(level, D_RIGHT, null, false);
+        step();
+        assertFalse(renderer.draw(level, D_RIGHT, null, false));
+        assertEquals(renderer.cellsDrawn, 2);
+        assertEquals(renderer.drawn[12 + 2], GameObject.KEEPER);
+    }
+
+    @Test
+    void testViewportScrolls() {
+        renderer.setViewport(5, 3);
+        renderer.draw(level, D_RIGHT, null, false);
+        assertEquals(renderer.drawn.length, 3 * 5);
+        assertEquals(renderer.drawn[5 + 1], GameObject.KEEPER);
+
+        // Walking right past the margin scrolls the view by one column each step
+        for (int i = 0; i < 4; i++) {
+            step();
+            renderer.draw(level, D_RIGHT, null, false);
+        }
+        assertEquals(renderer.drawn[5 + 2], GameObject.KEEPER);
+        assertEquals(renderer.drawn[0], GameObject.WALL);
+    }
+
+    /**
+     * Walk the keeper one cell to the right, over the floor.
+     */
+    private void step() {
+        int row = level.getKeeperPosition().x;
+        int col = level.getKeeperPosition().y;
+        if (level.getObjectAt(row, col + 1) == GameObject.CRATE) {
+            level.moveGameObjectTo(GameObject.CRATE, row, col + 1, row, col + 2);
+        }
+        level.moveGameObjectTo(GameObject.KEEPER, row, col, row, col + 1);
+        level.getKeeperPosition().translate(0, 1);
+    }
+
+    /**
+     * A renderer keeping what it would show, and counting the cells drawn one by one.
+     */
+    private static final class RecordingRenderer extends BoardRenderer {
+
+        GameObject[] drawn;
+        int columns;
+        int cellsDrawn;
+
+        RecordingRenderer() {
+            super(new GridPane());
+        }
+
+        @Override
+        public Kind getKind() {
+            return Kind.GRID;
+        }
+
+        @Override
+        protected void drawBoard(int rows, int columns, GameObject[] objects, short direction) {
+            drawn = objects.clone();
+            this.columns = columns;
+            cellsDrawn = 0;
+        }
+
+        @Override
+        protected void drawCell(int row, int col, GameObject object, short direction) {
+            drawn[row * columns + col] = object;
+            cellsDrawn++;
+        }
+    }
+}
@@ -1,23 +1,25 @@
 package com.sokoban.model;
 
-import com.sokoban.game.StartMeUp;
 import javafx.application.Platform;
 import org.junit.jupiter.api.Test;
-import java.io.InputStream;
+import javax.sound.sampled.LineUnavailableException;
 import static org.junit.jupiter.api.Assertions.*;
 
 class MusicModelTest {
 
-    InputStream inputStream;
-    StartMeUp gameEngine;
+    MusicModel music;
 
     @Test
     void testIsPlayingMusic() {
         Platform.startup(() -> {
-            inputStream = getClass().getClassLoader().getResourceAsStream("SampleGame.skb");
-            gameEngine = StartMeUp.getInstance(inputStream);
-            boolean check = gameEngine.getMusic().isPlayingMusic();
+            music = new MusicModel();
+            try {
+                music.createPlayer();
+            } catch (LineUnavailableException e) {
+                e.printStackTrace();
+            }
+            boolean check = music.isPlayingMusic();
             assertFalse(check);
         });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,57 @@
+package com.sokoban.score;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardTest {
+
+    @Test
+    void testRanks() {
+        Leaderboard leaderboard = new Leaderboard();
+        List<Score> sorted = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            Score score = new Score("p" + random.nextInt(50), random.nextInt(40), random.nextInt(30), i);
+            leaderboard.add(score);
+            sorted.add(score);
+        }
+        sorted.sort(Score.ORDER);
+
+        assertEquals(leaderboard.size(), sorted.size());
+        assertEquals(leaderboard.top(5), sorted.subList(0, 5));
+        assertEquals(leaderboard.top(5000), sorted);
+        for (int rank = 1; rank <= sorted.size(); rank += 37) {
+            assertSame(leaderboard.get(rank), sorted.get(rank - 1));
+            assertEquals(leaderboard.rankOf(sorted.get(rank - 1)), rank);
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> leaderboard.get(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> leaderboard.get(2001));
+    }
+
+    @Test
+    void testPlayers() {
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.add(new Score("Ann", 30, 20, 1));
+        leaderboard.add(new Score("Bob", 25, 10, 2));
+        leaderboard.add(new Score("Ann", 12, 8, 3));
+        leaderboard.add(new Score("Cy", 40, 50, 4));
+
+        assertEquals(leaderboard.players(), 3);
+        assertEquals(leaderboard.best("Ann").getMoves(), 12);
+        assertEquals(leaderboard.rank("Ann"), 1);
+        assertEquals(leaderboard.rank("Bob"), 2);
+        assertEquals(leaderboard.rank("Cy"), 4);
+        assertEquals(leaderboard.rank("Dee"), Leaderboard.NO_RANK);
+        assertNull(leaderboard.best("Dee"));
+
+        assertEquals(leaderboard.percentile(1), 100.0);
+        assertEquals(leaderboard.percentile(4), 25.0);
+        // A new score ranks after the equal ones already there
+        assertEquals(leaderboard.rankOf(new Score("Dee", 25, 10, 5)), 3);
+    }
+}
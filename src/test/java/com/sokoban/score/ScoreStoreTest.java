@@ -0,0 +1,131 @@
+package com.sokoban.score;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreStoreTest {
+
+    @Test
+    void testOrder() throws IOException {
+        Path directory = Files.createTempDirectory("scores");
+        try (ScoreStore store = new ScoreStore(directory)) {
+            store.add(1, "slow", 10, 30);
+            store.add(1, "first", 12, 20);
+            store.add(1, "fast", 9, 20);
+            store.add(1, "second", 12, 20);
+            store.add(2, "other", 1, 1);
+
+            assertEquals(names(store.top(1, 10)), Arrays.asList("fast", "first", "second", "slow"));
+            assertEquals(names(store.top(1, 2)), Arrays.asList("fast", "first"));
+            assertEquals(store.size(1), 4);
+            assertEquals(store.size(3), 0);
+            assertTrue(store.top(3, 10).isEmpty());
+        }
+    }
+
+    @Test
+    void testReload() throws IOException {
+        Path directory = Files.createTempDirectory("scores");
+        // A level file written before the log, with the name and time of the old format
+        Files.write(directory.resolve("level1.txt"),
+                Arrays.asList("Ann Lee\t\t24\t\t4", "\t\t24\t\t5"), StandardCharsets.UTF_8);
+
+        ScoreStore store = new ScoreStore(directory, 3);
+        assertEquals(names(store.top(1, 10)), Arrays.asList("Ann Lee", ""));
+        store.add(1, "Bob", 20, 5);
+        store.add(2, "Cy\tDo", 8, 2);
+
+        store.close();
+
+        ScoreStore reopened = new ScoreStore(directory, 3);
+        assertEquals(names(reopened.top(1, 10)), Arrays.asList("Ann Lee", "Bob", ""));
+        assertEquals(names(reopened.top(2, 10)), Arrays.asList("Cy Do"));
+        assertEquals(reopened.top(1, 1).get(0).getMoves(), 24);
+        assertEquals(reopened.top(1, 1).get(0).getTime(), 4);
+        reopened.add(1, "Dee", 20, 5);
+        reopened.close();
+
+        // Only the level files are left once compacted
+        assertFalse(Files.exists(directory.resolve("level1.tmp")));
+        assertFalse(Files.exists(directory.resolve("scores-0.log")));
+        assertFalse(Files.exists(directory.resolve("scores-1.log")));
+
+        // The last logged score comes after the compacted ones it ties with
+        try (ScoreStore last = new ScoreStore(directory, 3)) {
+            assertEquals(names(last.top(1, 10)), Arrays.asList("Ann Lee", "Bob", "Dee", ""));
+        }
+        assertEquals(Files.readAllLines(directory.resolve("level1.txt")).get(1), "Ann Lee\t\t24\t\t4");
+    }
+
+    @Test
+    void testCutLine() throws IOException {
+        Path directory = Files.createTempDirectory("scores");
+        ScoreStore store = new ScoreStore(directory);
+        store.add(1, "Ann", 10, 10);
+        store.add(1, "Bob", 10, 11);
+
+        // The store stopped in the middle of the last line
+        Path log = directory.resolve("scores-0.log");
+        byte[] data = Files.readAllBytes(log);
+        Files.write(log, Arrays.copyOf(data, data.length - 4));
+
+        try (ScoreStore reopened = new ScoreStore(directory)) {
+            assertEquals(names(reopened.top(1, 10)), Arrays.asList("Ann"));
+        }
+    }
+
+    @Test
+    void testConcurrentWriters() throws Exception {
+        Path directory = Files.createTempDirectory("scores");
+        final int threads = 8;
+        final int perThread = 250;
+        ScoreStore store = new ScoreStore(directory, 100);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            writers.add(pool.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    store.add(1 + i % 3, "p" + thread, i, (i * 7 + thread) % 50);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        pool.shutdown();
+
+        assertEquals(store.size(1) + store.size(2) + store.size(3), threads * perThread);
+        List<Score> level = store.top(1, Integer.MAX_VALUE);
+        for (int i = 1; i < level.size(); i++) {
+            assertTrue(Score.ORDER.compare(level.get(i - 1), level.get(i)) < 0);
+        }
+        store.close();
+
+        try (ScoreStore reopened = new ScoreStore(directory)) {
+            assertEquals(reopened.size(1) + reopened.size(2) + reopened.size(3), threads * perThread);
+            assertEquals(names(reopened.top(1, Integer.MAX_VALUE)), names(level));
+        }
+    }
+
+    private static List<String> names(List<Score> scores) {
+        List<String> names = new ArrayList<>();
+        for (Score score : scores) {
+            names.add(score.getName());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,156 @@
+package com.sokoban.solver;
+
+import com.sokoban.game.GameObject;
+import com.sokoban.game.Level;
+import com.sokoban.game.PackedBoard;
+import org.junit.jupiter.api.Test;
+import java.awt.*;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolverTest {
+
+    private final List<String> ONE_PUSH = Arrays.asList(
+            "WWWWWW",
+            "WS CDW",
+            "WWWWWW");
+    private final List<String> TWO_CRATES = Arrays.asList(
+            "WWWWWWW",
+            "W     W",
+            "W CC  W",
+            "W  S  W",
+            "WDD   W",
+            "WWWWWWW");
+    private final List<String> CORNERED = Arrays.asList(
+            "WWWWW",
+            "WC  W",
+            "W  SW",
+            "W  DW",
+            "WWWWW");
+
+    @Test
+    void testOnePush() {
+        SolverResult result = new Solver(new Level("One", 0, ONE_PUSH)).solve();
+        assertTrue(result.isSolved());
+        assertEquals(result.getPushes(), 1);
+        assertEquals(result.getMoves(), "rR");
+    }
+
+    @Test
+    void testAlgorithmsAgree() {
+        Solver aStar = new Solver(new Level("Two", 0, TWO_CRATES));
+        Solver idaStar = new Solver(new Level("Two", 0, TWO_CRATES));
+        idaStar.setAlgorithm(Solver.Algorithm.IDA_STAR);
+
+        SolverResult first = aStar.solve();
+        SolverResult second = idaStar.solve();
+        assertTrue(first.isSolved());
+        assertEquals(first.getPushes(), second.getPushes());
+        assertTrue(replaySolves(new Level("Two", 0, TWO_CRATES), first.getMoves()));
+        assertTrue(replaySolves(new Level("Two", 0, TWO_CRATES), second.getMoves()));
+    }
+
+    @Test
+    void testUnsolvable() {
+        Solver solver = new Solver(new Level("Cornered", 0, CORNERED));
+        assertEquals(solver.solve().getStatus(), SolverResult.Status.UNSOLVABLE);
+        solver.setAlgorithm(Solver.Algorithm.IDA_STAR);
+        assertEquals(solver.solve().getStatus(), SolverResult.Status.UNSOLVABLE);
+    }
+
+    @Test
+    void testTableGrows() {
+        // Room for 1 << 16 slots, but only the first ones are allocated
+        TranspositionTable table = new TranspositionTable((1 << 16) * (long) TranspositionTable.BYTES_PER_ENTRY);
+        int initial = table.capacity();
+        assertTrue(initial < 1 << 16);
+        for (long hash = 0; hash < initial; hash++) {
+            assertTrue(table.offer(hash * 0x9E3779B97F4A7C15L, 5));
+        }
+        assertTrue(table.capacity() > initial);
+        assertFalse(table.isFull());
+        for (long hash = 0; hash < initial; hash++) {
+            assertFalse(table.offer(hash * 0x9E3779B97F4A7C15L, 5));
+        }
+        assertTrue(table.offer(0, 4));
+        assertEquals(table.size(), initial);
+
+        // The budget stops the growth
+        for (long hash = initial; !table.isFull(); hash++) {
+            table.offer(hash * 0x9E3779B97F4A7C15L, 5);
+        }
+        assertEquals(table.capacity(), 1 << 16);
+        assertEquals(table.size(), (1 << 16) - (1 << 14));
+        assertTrue(table.offer(-1L, 5));
+        assertEquals(table.size(), (1 << 16) - (1 << 14));
+    }
+
+    @Test
+    void testBatch() throws InterruptedException {
+        BatchSolver batchSolver = new BatchSolver();
+        batchSolver.setThreads(2);
+        BatchReport report = batchSolver.solveAll(Arrays.asList(new Level("One", 0, ONE_PUSH),
+                new Level("Two", 1, TWO_CRATES), new Level("Cornered", 2, CORNERED)));
+        assertEquals(report.getSolvedCount(), 2);
+        assertEquals(report.getUnsolvedCount(), 1);
+        assertEquals(report.getResults().get(0).getPushes(), 1);
+        assertTrue(report.toString().contains("Level 2 (Two): "));
+        assertEquals(report.getResults().get(2).getLevelName(), "Cornered");
+    }
+
+    @Test
+    void testBatchFailure() throws InterruptedException {
+        // The second level cannot be built, the others are still solved
+        List<Level> levels = new AbstractList<Level>() {
+            @Override
+            public Level get(int index) {
+                if (index == 1) {
+                    throw new IllegalStateException("Broken level");
+                }
+                return new Level("One", index, ONE_PUSH);
+            }
+
+            @Override
+            public int size() {
+                return 3;
+            }
+        };
+        BatchReport report = new BatchSolver().solveAll(levels);
+        assertEquals(report.getSolvedCount(), 2);
+        assertEquals(report.getResults().get(1).getStatus(), SolverResult.Status.FAILED);
+        assertNull(report.getResults().get(1).getLevelName());
+        assertTrue(report.toString().contains("Level 2: FAILED"));
+        assertTrue(report.getResults().get(2).isSolved());
+    }
+
+    /**
+     * Play a LURD solution on the level and check that every diamond gets a crate.
+     */
+    private boolean replaySolves(Level level, String moves) {
+        final String directions = "urdl";
+        final int[] dRow = {-1, 0, 1, 0};
+        final int[] dCol = {0, 1, 0, -1};
+        Point keeper = level.getKeeperPosition();
+
+        for (char move : moves.toCharArray()) {
+            int d = directions.indexOf(Character.toLowerCase(move));
+            int row = keeper.x + dRow[d];
+            int col = keeper.y + dCol[d];
+            if (level.getObjectAt(row, col) == GameObject.CRATE) {
+                level.moveGameObjectTo(GameObject.CRATE, row, col, row + dRow[d], col + dCol[d]);
+            }
+            level.moveGameObjectTo(GameObject.KEEPER, keeper.x, keeper.y, row, col);
+            keeper.translate(dRow[d], dCol[d]);
+        }
+
+        PackedBoard board = level.getBoard();
+        for (int i = 0; i < board.size(); i++) {
+            if (board.has(i, PackedBoard.DIAMOND) && !board.has(i, PackedBoard.CRATE)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}